@@ -3,14 +3,22 @@ package top.medicine;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Collections;
 
 
 @SpringBootApplication
 @MapperScan("top.medicine.dao")
+@EnableScheduling
 public class SmartMedicineApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(SmartMedicineApplication.class, args);
+        SpringApplication application = new SpringApplication(SmartMedicineApplication.class);
+        // 部署在反向代理之后时由 Tomcat RemoteIpValve 按 X-Forwarded-For 还原客户端IP，
+        // 默认只信任内网地址的代理(server.tomcat.remoteip.internal-proxies)，配置文件中的值优先
+        application.setDefaultProperties(Collections.singletonMap("server.forward-headers-strategy", "native"));
+        application.run(args);
     }
 
 }
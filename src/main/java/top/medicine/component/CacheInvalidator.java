@@ -0,0 +1,147 @@
+package top.medicine.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.medicine.dao.CacheVersionDao;
+import top.medicine.entity.CacheVersion;
+
+import javax.annotation.PostConstruct;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * @description 多节点之间的缓存失效通知，只依赖 MySQL
+ * 实体保存、删除时在同一事务中向 cache_version 追加一条变更，各节点按序号轮询，把其他节点的变更分发给订阅者
+ * <p>
+ * 自增序号的提交顺序不一定与分配顺序一致，序号中间的空洞会等待 grace 毫秒，等不到(事务回滚)再跳过
+ */
+@Slf4j
+@Component
+public class CacheInvalidator {
+
+    // 每次轮询最多读取的变更数
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private CacheVersionDao cacheVersionDao;
+
+    // 序号空洞的最长等待时间(毫秒)，应大于保存事务的最长耗时
+    @Value("${cache.invalidation.grace:10000}")
+    private long grace = 10000;
+
+    // 变更日志的保留时间(毫秒)
+    @Value("${cache.invalidation.retention:86400000}")
+    private long retention = 86400000;
+
+    // 本节点标识，自己发出的变更在本地已经处理过
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 缓存名称 -> 订阅者，参数为变更的实体id，为 null 表示整个缓存
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    // 不大于 floor 的变更都已处理
+    private long floor;
+
+    // 大于 floor 且已处理的变更序号
+    private final TreeSet<Long> seen = new TreeSet<>();
+
+    // 发现 floor 之后存在空洞的时间，0 表示没有空洞
+    private long gapSince;
+
+    @PostConstruct
+    public void init() {
+        // 启动时本地缓存为空，只需要关注之后的变更
+        floor = cacheVersionDao.selectMaxId();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 订阅其他节点对某个缓存的变更
+     */
+    public void subscribe(String cacheName, Consumer<String> listener) {
+        listeners.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * 记录一次变更，需要在保存、删除实体的事务中调用
+     * @param key 变更的实体id，为 null 表示整个缓存
+     */
+    public void publish(String cacheName, Serializable key) {
+        cacheVersionDao.insert(CacheVersion.builder()
+                .cacheName(cacheName)
+                .entityKey(key == null ? null : key.toString())
+                .nodeId(nodeId)
+                .createTime(new Date())
+                .build());
+    }
+
+    /**
+     * 拉取新的变更并分发给订阅者
+     */
+    @Scheduled(fixedDelayString = "${cache.invalidation.poll-interval:1000}")
+    public synchronized void poll() {
+        for (CacheVersion version : cacheVersionDao.selectAfter(floor, BATCH_SIZE)) {
+            if (seen.add(version.getId()) && !nodeId.equals(version.getNodeId())) {
+                dispatch(version);
+            }
+        }
+        advance(System.currentTimeMillis());
+    }
+
+    /**
+     * 清理过期的变更日志
+     */
+    @Scheduled(cron = "${cache.invalidation.purge-cron:0 0 4 * * ?}")
+    public void purge() {
+        Date before = new Date(System.currentTimeMillis() - retention);
+        while (cacheVersionDao.deleteBefore(before, BATCH_SIZE) >= BATCH_SIZE) {
+            // 分批删除，避免长事务
+        }
+    }
+
+    private void dispatch(CacheVersion version) {
+        List<Consumer<String>> subscribers = listeners.get(version.getCacheName());
+        if (subscribers == null) {
+            return;
+        }
+        for (Consumer<String> listener : subscribers) {
+            try {
+                listener.accept(version.getEntityKey());
+            } catch (RuntimeException e) {
+                log.warn("处理缓存变更失败: {}", version, e);
+            }
+        }
+    }
+
+    /**
+     * 把 floor 推进到连续处理过的最大序号；空洞超过 grace 仍未出现时跳过
+     */
+    private void advance(long now) {
+        while (!seen.isEmpty()) {
+            long first = seen.first();
+            if (first == floor + 1) {
+                seen.pollFirst();
+                floor = first;
+                gapSince = 0;
+            } else if (gapSince == 0) {
+                gapSince = now;
+                return;
+            } else if (now - gapSince >= grace) {
+                floor = first - 1;
+                gapSince = 0;
+            } else {
+                return;
+            }
+        }
+        gapSince = 0;
+    }
+}
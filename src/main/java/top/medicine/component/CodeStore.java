@@ -0,0 +1,33 @@
+package top.medicine.component;
+
+/**
+ * @description 带过期时间的键值存储，保存邮箱验证码与发送频率计数
+ * 默认使用单节点内存实现 {@link LocalCodeStore}，多节点部署时配置 verification.store=jdbc 改用数据库共享的 {@link JdbcCodeStore}
+ */
+public interface CodeStore {
+
+    /**
+     * 写入一个值，ttl 毫秒后过期，已有的值与计数被覆盖
+     */
+    void put(String key, String value, long ttl);
+
+    /**
+     * 未过期的值，不存在或已过期时返回 null
+     */
+    String get(String key);
+
+    /**
+     * 删除一个值
+     */
+    void remove(String key);
+
+    /**
+     * 计数加一并返回加一后的计数，首次计数或上一个窗口已过期时从1开始，窗口长 ttl 毫秒
+     */
+    long increment(String key, long ttl);
+
+    /**
+     * 当前窗口内的计数，不存在或窗口已过期时返回0
+     */
+    long count(String key);
+}
@@ -0,0 +1,95 @@
+package top.medicine.component;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import top.medicine.dao.UploadObjectDao;
+import top.medicine.entity.UploadObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * @description 按内容去重的上传
+ * 上传的文件以 SHA-256 作为对象名，相同内容已上传过时直接返回已有地址，只读一遍本地缓存的上传内容，不写存储
+ * 只接受图片与视频，HTML、SVG 等可能携带脚本的文件不保存
+ */
+@Component
+public class ContentStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 允许上传的扩展名：头像、文章图片与视频
+    static final Set<String> ALLOWED_EXTENSIONS = Set.of(
+            ".jpg", ".jpeg", ".png", ".gif", ".webp", ".bmp",
+            ".mp4", ".webm", ".ogg", ".mov");
+
+    @Autowired
+    private ObjectStorage objectStorage;
+
+    @Autowired
+    private UploadObjectDao uploadObjectDao;
+
+    /**
+     * 是否允许上传该文件，按扩展名判断
+     */
+    public static boolean accepts(String filename) {
+        return filename != null && ALLOWED_EXTENSIONS.contains(ObjectStorage.getFileExtension(filename));
+    }
+
+    /**
+     * 保存上传的文件
+     * @return 文件的访问地址，文件为空时返回 null
+     */
+    public String upload(MultipartFile file) throws IOException {
+        if (file == null) {
+            return null;
+        }
+        if (!accepts(file.getOriginalFilename())) {
+            throw new IllegalArgumentException("不支持的文件类型: " + file.getOriginalFilename());
+        }
+        String sha256 = sha256(file);
+        // 只复用当前存储中的对象，切换存储后重新保存
+        String backend = objectStorage.backend();
+        UploadObject existing = uploadObjectDao.selectByHash(sha256, backend);
+        if (existing != null) {
+            return objectStorage.url(existing.getObjectKey());
+        }
+        // 按哈希前两位分目录，避免单个目录下文件过多
+        String key = sha256.substring(0, 2) + "/" + sha256 + ObjectStorage.getFileExtension(file);
+        try (InputStream in = file.getInputStream()) {
+            objectStorage.put(key, in, file.getSize());
+        }
+        // 并发上传相同内容时写入的是同一份内容，只保留先写入的记录
+        uploadObjectDao.insertIgnore(UploadObject.builder()
+                .sha256(sha256)
+                .backend(backend)
+                .objectKey(key)
+                .size(file.getSize())
+                .createTime(new Date())
+                .build());
+        return objectStorage.url(key);
+    }
+
+    static String sha256(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = file.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -3,26 +3,23 @@ package top.medicine.component;
 import cn.hutool.core.util.RandomUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Component;
 
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 
+/**
+ * @description 邮件内容的组装，实际发送由 {@link MailOutbox} 在后台完成，请求线程不等待 SMTP
+ */
 @Component
 public class EmailClient {
 
     @Autowired
-    private JavaMailSenderImpl mailSender;
+    private MailOutbox mailOutbox;
 
     
-    @Value("${spring.mail.username}")
-    private String email;
-
-    
-    @Value("${spring.mail.valid}")
+    @Value("${spring.mail.valid:5}")
     private Integer valid;
 
     
@@ -37,32 +34,14 @@ public class EmailClient {
     public String sendEmailCode(String targetEmail) {
         // 生成随机验证码
         String verifyCode = RandomUtil.randomNumbers(6);
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage);
-        try {
-            helper.setSubject(title);
-            helper.setText(String.format(template, verifyCode, valid), true);
-            helper.setFrom(email);
-            helper.setTo(targetEmail);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
-        mailSender.send(mimeMessage);
+        // 验证码失效后邮件不再发送
+        Date expireTime = new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(valid));
+        mailOutbox.enqueue(targetEmail, title, String.format(template, verifyCode, valid), expireTime);
         return verifyCode;
     }
 
     
     public void sendEmail(String targetEmail, String title, String content) {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage);
-        try {
-            helper.setSubject(title);
-            helper.setText(content, true);
-            helper.setFrom(email);
-            helper.setTo(targetEmail);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
-        mailSender.send(mimeMessage);
+        mailOutbox.enqueue(targetEmail, title, content);
     }
 }
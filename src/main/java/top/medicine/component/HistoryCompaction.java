@@ -0,0 +1,61 @@
+package top.medicine.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.medicine.dao.HistoryDao;
+import top.medicine.entity.History;
+
+/**
+ * @description 搜索记录的定期清理
+ * 每个用户只保留最近的 keep 条记录，更旧的记录分批删除，每批一条 DELETE ... LIMIT，避免长事务与大范围锁
+ */
+@Slf4j
+@Component
+public class HistoryCompaction {
+
+    @Autowired
+    private HistoryDao historyDao;
+
+    // 每个用户保留的记录数，不少于 RecentHistory.SIZE
+    @Value("${history.retention:50}")
+    private int keep = 50;
+
+    // 每批删除的条数
+    @Value("${history.compact-batch:500}")
+    private int batchSize = 500;
+
+    /**
+     * 清理所有用户的旧记录
+     * @return 删除的记录数
+     */
+    @Scheduled(cron = "${history.compact-cron:0 30 3 * * ?}")
+    public synchronized long compact() {
+        int retain = Math.max(keep, RecentHistory.SIZE);
+        long deleted = 0;
+        for (Integer userId : historyDao.selectUsersOver(retain)) {
+            deleted += compact(userId, retain);
+        }
+        if (deleted > 0) {
+            log.info("清理搜索记录{}条", deleted);
+        }
+        return deleted;
+    }
+
+    private long compact(Integer userId, int retain) {
+        // 第 retain 条是保留的最旧一条，比它旧的都删除
+        History boundary = historyDao.selectNth(userId, retain - 1);
+        if (boundary == null) {
+            return 0;
+        }
+        long deleted = 0;
+        int rows;
+        do {
+            rows = historyDao.deleteOlder(userId, boundary.getUpdateTime(), boundary.getId(), batchSize);
+            deleted += rows;
+        } while (rows >= batchSize);
+        return deleted;
+    }
+}
@@ -0,0 +1,160 @@
+package top.medicine.component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import top.medicine.dao.HistoryDao;
+import top.medicine.entity.History;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description 搜索记录的异步批量写入
+ * 请求线程只把记录放入有界队列，后台线程攒够一批或等待超时后用一条多行 INSERT 写入，重复的关键词只更新时间；
+ * 队列满时直接丢弃并计数，不阻塞请求；应用关闭时写完队列中剩余的记录
+ */
+@Slf4j
+@Component
+public class HistoryWriter {
+
+    @Autowired
+    private HistoryDao historyDao;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // 队列容量
+    @Value("${history.queue-capacity:10000}")
+    private int capacity = 10000;
+
+    // 每批最多写入的条数
+    @Value("${history.batch-size:200}")
+    private int batchSize = 200;
+
+    // 一批记录最长的等待时间(毫秒)
+    @Value("${history.flush-interval:500}")
+    private long flushInterval = 500;
+
+    // 关闭时放入队列，唤醒等待中的后台线程
+    private static final History STOP = new History();
+
+    private BlockingQueue<History> queue;
+
+    // 队列满时丢弃的条数
+    private final LongAdder dropped = new LongAdder();
+
+    // 写入失败的条数
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        worker = new Thread(this::run, "history-writer");
+        worker.setDaemon(true);
+        worker.start();
+        if (meterRegistry != null) {
+            Gauge.builder("history.writer.queue", queue, BlockingQueue::size).register(meterRegistry);
+            FunctionCounter.builder("history.writer.dropped", dropped, LongAdder::sum).register(meterRegistry);
+            FunctionCounter.builder("history.writer.failed", failed, LongAdder::sum).register(meterRegistry);
+        }
+    }
+
+    /**
+     * 提交一条搜索记录，不阻塞
+     * @return 队列已满被丢弃时返回 false
+     */
+    public boolean offer(History history) {
+        if (queue.offer(history)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        // 不中断后台线程，避免打断正在进行的数据库写入；队列已满时后台线程本来就不会等待
+        queue.offer(STOP);
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        // 后台线程退出后，当前线程写完剩余的记录
+        List<History> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            batch.removeIf(history -> history == STOP);
+            write(batch);
+        }
+    }
+
+    private void run() {
+        List<History> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                History first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 从第一条开始计时，攒够一批、超时或开始关闭时写入
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    History next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            batch.removeIf(history -> history == STOP);
+            write(batch);
+        }
+    }
+
+    private void write(List<History> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            historyDao.upsertBatch(batch);
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            log.warn("搜索记录写入失败，丢弃{}条", batch.size(), e);
+        }
+        batch.clear();
+    }
+}
@@ -0,0 +1,112 @@
+package top.medicine.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.medicine.dao.IllnessDao;
+import top.medicine.entity.Illness;
+import top.medicine.utils.Assert;
+import top.medicine.utils.FullTextIndex;
+
+import javax.annotation.PostConstruct;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @description 疾病全文检索的内存倒排索引
+ * 启动时从数据库全量构建，疾病保存、删除时增量维护，避免对 mediumtext 字段做 LIKE 全表扫描
+ */
+@Component
+public class IllnessIndex {
+
+    // 字段权重：疾病名称 > 疾病症状、特殊症状 > 诱发因素
+    private static final double[] WEIGHTS = {4.0, 1.5, 1.5, 1.0};
+
+    @Autowired
+    private IllnessDao illnessDao;
+
+    private volatile FullTextIndex index = new FullTextIndex(WEIGHTS);
+
+    // 疾病id -> 疾病种类id
+    private volatile Map<Integer, Integer> kinds = new ConcurrentHashMap<>();
+
+    // 疾病id -> 疾病名称
+    private volatile Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        List<Illness> illnesses = illnessDao.selectList(new QueryWrapper<>());
+        FullTextIndex newIndex = new FullTextIndex(WEIGHTS);
+        Map<Integer, Integer> newKinds = new ConcurrentHashMap<>();
+        Map<Integer, String> newNames = new ConcurrentHashMap<>();
+        illnesses.forEach(illness -> add(newIndex, newKinds, newNames, illness));
+        index = newIndex;
+        kinds = newKinds;
+        names = newNames;
+    }
+
+    /**
+     * 新增或更新一条疾病的索引
+     */
+    public void put(Illness illness) {
+        if (illness == null || illness.getId() == null) {
+            return;
+        }
+        add(index, kinds, names, illness);
+    }
+
+    /**
+     * 删除一条疾病的索引
+     */
+    public void remove(Serializable id) {
+        if (id == null) {
+            return;
+        }
+        Integer illnessId = Integer.valueOf(id.toString());
+        index.remove(illnessId);
+        kinds.remove(illnessId);
+        names.remove(illnessId);
+    }
+
+    /**
+     * 疾病名称，疾病不存在时返回 null
+     */
+    public String getName(Integer id) {
+        return id == null ? null : names.get(id);
+    }
+
+    /**
+     * 按关键词检索疾病，名称、症状、诱因均参与匹配
+     * @param kind 疾病种类id，为空时不过滤
+     * @param keyword 关键词
+     * @return 命中的疾病id，按相关度从高到低排序
+     */
+    public List<Integer> search(Integer kind, String keyword) {
+        if (Assert.isEmpty(keyword)) {
+            return Collections.emptyList();
+        }
+        Map<Integer, Integer> currentKinds = kinds;
+        return index.search(keyword, id -> kind == null || kind.equals(currentKinds.get(id)));
+    }
+
+    private static void add(FullTextIndex index, Map<Integer, Integer> kinds, Map<Integer, String> names, Illness illness) {
+        index.put(illness.getId(),
+                illness.getIllnessName(),
+                illness.getIllnessSymptom(),
+                illness.getSpecialSymptom(),
+                illness.getIncludeReason());
+        if (illness.getKindId() == null) {
+            kinds.remove(illness.getId());
+        } else {
+            kinds.put(illness.getId(), illness.getKindId());
+        }
+        if (illness.getIllnessName() == null) {
+            names.remove(illness.getId());
+        } else {
+            names.put(illness.getId(), illness.getIllnessName());
+        }
+    }
+}
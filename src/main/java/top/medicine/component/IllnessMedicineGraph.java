@@ -0,0 +1,199 @@
+package top.medicine.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.medicine.dao.IllnessMedicineDao;
+import top.medicine.entity.IllnessMedicine;
+
+import javax.annotation.PostConstruct;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @description 疾病与药品关联的内存二分图，每个疾病、每个药品各一个位图，集合查询只做位运算
+ * 启动时从 illness_medicine 全量构建，关联保存、删除时增量维护
+ */
+@Component
+public class IllnessMedicineGraph {
+
+    @Autowired
+    private IllnessMedicineDao illnessMedicineDao;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 疾病id -> 关联药品id的位图
+    private final Map<Integer, BitSet> medicinesByIllness = new HashMap<>();
+
+    // 药品id -> 关联疾病id的位图
+    private final Map<Integer, BitSet> illnessesByMedicine = new HashMap<>();
+
+    // 关联id -> 疾病id、药品id，删除关联时使用
+    private final Map<Integer, int[]> relations = new HashMap<>();
+
+    // (疾病id, 药品id) -> 关联条数，同一对重复关联时全部删除才去掉边
+    private final Map<Long, Integer> edges = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        List<IllnessMedicine> list = illnessMedicineDao.selectList(new QueryWrapper<>());
+        lock.writeLock().lock();
+        try {
+            medicinesByIllness.clear();
+            illnessesByMedicine.clear();
+            relations.clear();
+            edges.clear();
+            list.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新一条关联
+     */
+    public void put(IllnessMedicine relation) {
+        if (relation == null || relation.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeRelation(relation.getId());
+            add(relation);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除一条关联
+     * @param id 关联id
+     */
+    public void remove(Serializable id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeRelation(Integer.valueOf(id.toString()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 与全部给定疾病都有关联的药品
+     */
+    public BitSet medicinesOfAll(Collection<Integer> illnessIds) {
+        lock.readLock().lock();
+        try {
+            BitSet result = null;
+            for (Integer illnessId : illnessIds) {
+                BitSet medicines = medicinesByIllness.get(illnessId);
+                if (medicines == null) {
+                    return new BitSet();
+                }
+                if (result == null) {
+                    result = (BitSet) medicines.clone();
+                } else {
+                    result.and(medicines);
+                }
+            }
+            return result == null ? new BitSet() : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 与任一给定疾病有关联的药品
+     */
+    public BitSet medicinesOfAny(Collection<Integer> illnessIds) {
+        lock.readLock().lock();
+        try {
+            BitSet result = new BitSet();
+            for (Integer illnessId : illnessIds) {
+                BitSet medicines = medicinesByIllness.get(illnessId);
+                if (medicines != null) {
+                    result.or(medicines);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 与给定疾病共用药品的其他疾病，按共用药品数从多到少排序，数量相同时按id升序
+     */
+    public List<Integer> illnessesSharingMedicines(Integer illnessId) {
+        lock.readLock().lock();
+        try {
+            BitSet medicines = medicinesByIllness.get(illnessId);
+            if (medicines == null) {
+                return new ArrayList<>();
+            }
+            BitSet candidates = new BitSet();
+            for (int m = medicines.nextSetBit(0); m >= 0; m = medicines.nextSetBit(m + 1)) {
+                candidates.or(illnessesByMedicine.get(m));
+            }
+            candidates.clear(illnessId);
+            Map<Integer, Integer> shared = new HashMap<>();
+            List<Integer> result = new ArrayList<>(candidates.cardinality());
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                BitSet common = (BitSet) medicinesByIllness.get(i).clone();
+                common.and(medicines);
+                shared.put(i, common.cardinality());
+                result.add(i);
+            }
+            result.sort(Comparator.comparing((Integer i) -> shared.get(i)).reversed().thenComparing(i -> i));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(IllnessMedicine relation) {
+        Integer illnessId = relation.getIllnessId();
+        Integer medicineId = relation.getMedicineId();
+        if (illnessId == null || medicineId == null || illnessId < 0 || medicineId < 0) {
+            return;
+        }
+        relations.put(relation.getId(), new int[]{illnessId, medicineId});
+        edges.merge(edge(illnessId, medicineId), 1, Integer::sum);
+        medicinesByIllness.computeIfAbsent(illnessId, k -> new BitSet()).set(medicineId);
+        illnessesByMedicine.computeIfAbsent(medicineId, k -> new BitSet()).set(illnessId);
+    }
+
+    private void removeRelation(Integer id) {
+        int[] relation = relations.remove(id);
+        if (relation == null) {
+            return;
+        }
+        int illnessId = relation[0];
+        int medicineId = relation[1];
+        if (edges.merge(edge(illnessId, medicineId), -1, Integer::sum) > 0) {
+            return;
+        }
+        edges.remove(edge(illnessId, medicineId));
+        clear(medicinesByIllness, illnessId, medicineId);
+        clear(illnessesByMedicine, medicineId, illnessId);
+    }
+
+    private static void clear(Map<Integer, BitSet> bitmaps, int key, int bit) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.clear(bit);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static long edge(int illnessId, int medicineId) {
+        return ((long) illnessId << 32) | medicineId;
+    }
+}
@@ -0,0 +1,171 @@
+package top.medicine.component;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description 最近24小时的热门疾病
+ * 浏览量按分钟分桶，滚动窗口内的总数与前K名随浏览增量维护，查询不访问数据库
+ */
+@Component
+public class IllnessTrending {
+
+    // 热门榜最多保留的疾病数
+    public static final int TOP_K = 10;
+
+    // 窗口内的分钟桶数
+    private static final int BUCKETS = 24 * 60;
+
+    @Autowired
+    private IllnessIndex illnessIndex;
+
+    private Clock clock = Clock.systemUTC();
+
+    // 每个桶内 疾病id -> 浏览次数
+    private final Map<Integer, Integer>[] buckets;
+
+    // 每个桶对应的分钟数
+    private final long[] bucketMinutes = new long[BUCKETS];
+
+    // 窗口内 疾病id -> 浏览次数
+    private final Map<Integer, Long> window = new HashMap<>();
+
+    // 窗口内浏览次数最多的K个疾病，堆顶是其中最少的
+    private final PriorityQueue<Integer> top = new PriorityQueue<>(TOP_K, this::compare);
+
+    // 最近一次记录或查询所在的分钟
+    private long currentMinute;
+
+    @SuppressWarnings("unchecked")
+    public IllnessTrending() {
+        buckets = new Map[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new HashMap<>();
+        }
+        Arrays.fill(bucketMinutes, -1);
+    }
+
+    /**
+     * 记录一次浏览
+     */
+    public synchronized void record(Integer illnessId) {
+        if (illnessId == null) {
+            return;
+        }
+        long minute = advance();
+        buckets[(int) (minute % BUCKETS)].merge(illnessId, 1, Integer::sum);
+        window.merge(illnessId, 1L, Long::sum);
+        if (top.remove(illnessId) || top.size() < TOP_K) {
+            top.add(illnessId);
+        } else if (compare(illnessId, top.peek()) > 0) {
+            top.poll();
+            top.add(illnessId);
+        }
+    }
+
+    /**
+     * 疾病被删除后移出窗口，空出的名次由榜外的疾病补上
+     */
+    public synchronized void remove(Integer illnessId) {
+        if (illnessId == null || window.remove(illnessId) == null) {
+            return;
+        }
+        for (Map<Integer, Integer> bucket : buckets) {
+            bucket.remove(illnessId);
+        }
+        if (top.contains(illnessId)) {
+            rebuildTop();
+        }
+    }
+
+    /**
+     * 热门疾病，按窗口内浏览次数从高到低排序
+     * @param limit 返回条数，不超过 {@link #TOP_K}
+     * @return 每项包含疾病id、名称与浏览次数
+     */
+    public synchronized List<Map<String, Object>> top(int limit) {
+        advance();
+        List<Integer> ids = new ArrayList<>(top);
+        ids.sort((a, b) -> compare(b, a));
+        List<Map<String, Object>> list = new ArrayList<>(Math.min(limit, ids.size()));
+        for (Integer id : ids) {
+            if (list.size() >= limit) {
+                break;
+            }
+            String name = illnessIndex.getName(id);
+            if (name == null) {
+                // 其他节点已删除、本节点尚未收到变更的疾病
+                continue;
+            }
+            Map<String, Object> item = new HashMap<>(4);
+            item.put("id", id);
+            item.put("illnessName", name);
+            item.put("views", window.get(id));
+            list.add(item);
+        }
+        return list;
+    }
+
+    /**
+     * 滚动到当前分钟，过期的桶从窗口中扣除
+     * @return 当前分钟
+     */
+    private long advance() {
+        long minute = TimeUnit.MILLISECONDS.toMinutes(clock.millis());
+        if (minute <= currentMinute) {
+            return currentMinute;
+        }
+        boolean expired = false;
+        long from = Math.max(currentMinute + 1, minute - BUCKETS + 1);
+        for (long m = from; m <= minute; m++) {
+            int slot = (int) (m % BUCKETS);
+            if (bucketMinutes[slot] != m) {
+                expired |= expire(buckets[slot]);
+                bucketMinutes[slot] = m;
+            }
+        }
+        currentMinute = minute;
+        if (expired) {
+            rebuildTop();
+        }
+        return minute;
+    }
+
+    private boolean expire(Map<Integer, Integer> bucket) {
+        if (bucket.isEmpty()) {
+            return false;
+        }
+        bucket.forEach((id, count) -> {
+            if (window.merge(id, (long) -count, Long::sum) <= 0) {
+                window.remove(id);
+            }
+        });
+        bucket.clear();
+        return true;
+    }
+
+    /**
+     * 有桶过期时窗口内的计数会减少，榜外的疾病可能进入前K，此时重新选出前K，最多每分钟一次
+     */
+    private void rebuildTop() {
+        top.clear();
+        for (Integer id : window.keySet()) {
+            if (top.size() < TOP_K) {
+                top.add(id);
+            } else if (compare(id, top.peek()) > 0) {
+                top.poll();
+                top.add(id);
+            }
+        }
+    }
+
+    // 先比较窗口内浏览次数，次数相同时id大的(较新的疾病)靠前
+    private int compare(Integer a, Integer b) {
+        int c = Long.compare(window.getOrDefault(a, 0L), window.getOrDefault(b, 0L));
+        return c != 0 ? c : Integer.compare(a, b);
+    }
+}
@@ -0,0 +1,65 @@
+package top.medicine.component;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import top.medicine.dao.ExpiringEntryDao;
+
+import java.util.Date;
+
+/**
+ * @description 数据库共享的 {@link CodeStore}，多个节点看到同一份验证码与发送频率计数
+ * 过期的行查询时按过期时间过滤，由定时任务分批删除
+ */
+@Component
+@ConditionalOnProperty(name = "verification.store", havingValue = "jdbc")
+public class JdbcCodeStore implements CodeStore {
+
+    // 每次清理删除的最大行数
+    private static final int PURGE_BATCH = 1000;
+
+    @Autowired
+    private ExpiringEntryDao expiringEntryDao;
+
+    @Override
+    public void put(String key, String value, long ttl) {
+        expiringEntryDao.upsert(key, value, new Date(System.currentTimeMillis() + ttl));
+    }
+
+    @Override
+    public String get(String key) {
+        return expiringEntryDao.selectValue(key, new Date());
+    }
+
+    @Override
+    public void remove(String key) {
+        expiringEntryDao.deleteById(key);
+    }
+
+    /**
+     * 计数与读取在同一事务中，行锁保证并发计数不丢失
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public long increment(String key, long ttl) {
+        long now = System.currentTimeMillis();
+        expiringEntryDao.increment(key, new Date(now), new Date(now + ttl));
+        return expiringEntryDao.selectCounter(key);
+    }
+
+    @Override
+    public long count(String key) {
+        Long counter = expiringEntryDao.selectActiveCounter(key, new Date());
+        return counter == null ? 0 : counter;
+    }
+
+    @Scheduled(fixedDelayString = "${verification.purge-interval:60000}")
+    public void purge() {
+        Date now = new Date();
+        while (expiringEntryDao.deleteExpired(now, PURGE_BATCH) == PURGE_BATCH) {
+            // 继续删除下一批
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package top.medicine.component;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * @description 单节点的内存 {@link CodeStore}
+ * 键值放在 ConcurrentHashMap 中，查询为 O(1) 且过期的值直接视为不存在；
+ * 另用按过期时间排序的优先队列在写入和定时任务中清理过期的键，内存不随历史请求数增长
+ */
+@Component
+@ConditionalOnProperty(name = "verification.store", havingValue = "local", matchIfMissing = true)
+public class LocalCodeStore implements CodeStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // 按过期时间排序，被覆盖的旧值到期后出队时不会误删新值
+    private final PriorityQueue<Entry> expiries = new PriorityQueue<>(Comparator.comparingLong(e -> e.expireAt));
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    @Override
+    public void put(String key, String value, long ttl) {
+        long now = clock.getAsLong();
+        Entry entry = new Entry(key, value, now + ttl);
+        entries.put(key, entry);
+        enqueue(entry, now);
+    }
+
+    @Override
+    public String get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null || entry.expired(clock.getAsLong()) ? null : entry.value;
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public long increment(String key, long ttl) {
+        long now = clock.getAsLong();
+        Entry[] created = new Entry[1];
+        Entry entry = entries.compute(key, (k, e) -> {
+            if (e == null || e.expired(now)) {
+                e = created[0] = new Entry(k, null, now + ttl);
+            }
+            e.counter++;
+            return e;
+        });
+        long counter = entry.counter;
+        if (created[0] != null) {
+            enqueue(created[0], now);
+        }
+        return counter;
+    }
+
+    @Override
+    public long count(String key) {
+        Entry entry = entries.get(key);
+        return entry == null || entry.expired(clock.getAsLong()) ? 0 : entry.counter;
+    }
+
+    /**
+     * 未过期的键数
+     */
+    public int size() {
+        long now = clock.getAsLong();
+        return (int) entries.values().stream().filter(e -> !e.expired(now)).count();
+    }
+
+    @Scheduled(fixedDelayString = "${verification.purge-interval:60000}")
+    public void purge() {
+        synchronized (expiries) {
+            evict(clock.getAsLong());
+        }
+    }
+
+    private void enqueue(Entry entry, long now) {
+        synchronized (expiries) {
+            expiries.add(entry);
+            evict(now);
+        }
+    }
+
+    private void evict(long now) {
+        while (!expiries.isEmpty() && expiries.peek().expired(now)) {
+            Entry entry = expiries.poll();
+            entries.remove(entry.key, entry);
+        }
+    }
+
+    private static class Entry {
+
+        private final String key;
+
+        private final String value;
+
+        private final long expireAt;
+
+        // 只在 ConcurrentHashMap.compute 中修改
+        private long counter;
+
+        private Entry(String key, String value, long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private boolean expired(long now) {
+            return expireAt <= now;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package top.medicine.component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.medicine.dao.EmailOutboxDao;
+import top.medicine.entity.EmailOutbox;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description 邮件发件箱：请求线程只把邮件写入 email_outbox，固定数量的后台线程认领到期的邮件批量发送
+ * 同一批邮件共用一个 SMTP 连接；发送失败按指数退避重试，超过次数或过期后标记为失败
+ * 已发送和发送失败的邮件保留 retention 后定期删除，验证码不会一直留在表中
+ */
+@Slf4j
+@Component
+public class MailOutbox {
+
+    @Autowired
+    private EmailOutboxDao emailOutboxDao;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // 发件人
+    @Value("${spring.mail.username:}")
+    private String from;
+
+    // 后台发送线程数
+    @Value("${mail.outbox.workers:2}")
+    private int workers = 2;
+
+    // 每批最多发送的邮件数，同一批共用一个连接
+    @Value("${mail.outbox.batch-size:20}")
+    private int batchSize = 20;
+
+    // 没有新邮件时的轮询间隔(毫秒)
+    @Value("${mail.outbox.poll-interval:1000}")
+    private long pollInterval = 1000;
+
+    // 最多尝试次数
+    @Value("${mail.outbox.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    // 第一次重试的等待时间(毫秒)，之后每次翻倍
+    @Value("${mail.outbox.backoff:2000}")
+    private long backoff = 2000;
+
+    // 重试等待时间的上限(毫秒)
+    @Value("${mail.outbox.max-backoff:600000}")
+    private long maxBackoff = 600000;
+
+    // 发送中超过该时间(毫秒)仍未完成的邮件视为中途宕机，重新待发送
+    @Value("${mail.outbox.stale-after:600000}")
+    private long staleAfter = 600000;
+
+    // 已发送和发送失败的邮件保留时间(毫秒)
+    @Value("${mail.outbox.retention:86400000}")
+    private long retention = 86400000;
+
+    // 清理时每批删除的条数
+    @Value("${mail.outbox.purge-batch:500}")
+    private int purgeBatch = 500;
+
+    // 有新邮件时唤醒后台线程
+    private final Semaphore wakeup = new Semaphore(0);
+
+    // 待发送邮件数，写入时递增，发送成功或放弃时递减，定时检查中断邮件时按数据库校正(包括其他节点写入的邮件)
+    private final AtomicLong pending = new AtomicLong();
+
+    private final LongAdder sent = new LongAdder();
+
+    private final LongAdder retried = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    @PostConstruct
+    public void start() {
+        releaseStale();
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::run, "mail-outbox-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        if (meterRegistry != null) {
+            Gauge.builder("mail.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+            FunctionCounter.builder("mail.outbox.sent", sent, LongAdder::sum).register(meterRegistry);
+            FunctionCounter.builder("mail.outbox.retried", retried, LongAdder::sum).register(meterRegistry);
+            FunctionCounter.builder("mail.outbox.failed", failed, LongAdder::sum).register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        wakeup.release(threads.size());
+        // 未发送的邮件留在表中，下次启动后继续发送
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        threads.clear();
+    }
+
+    /**
+     * 放入发件箱，不等待发送
+     * @param content 正文(HTML)
+     */
+    public void enqueue(String to, String subject, String content) {
+        enqueue(to, subject, content, null);
+    }
+
+    /**
+     * 放入发件箱，不等待发送，到 expireTime 仍未发出则放弃
+     * @param content 正文(HTML)
+     * @param expireTime 过期时间，为空表示不过期
+     */
+    public void enqueue(String to, String subject, String content, Date expireTime) {
+        Date now = new Date();
+        emailOutboxDao.insert(EmailOutbox.builder()
+                .toAddress(to)
+                .subject(subject)
+                .content(content)
+                .status(EmailOutbox.PENDING)
+                .attempts(0)
+                .nextAttemptTime(now)
+                .expireTime(expireTime)
+                .createTime(now)
+                .updateTime(now)
+                .build());
+        pending.incrementAndGet();
+        wakeup.release();
+    }
+
+    public long getPending() {
+        return pending.get();
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.stale-check-interval:60000}")
+    public void releaseStale() {
+        int rows = emailOutboxDao.releaseStale(new Date(System.currentTimeMillis() - staleAfter));
+        if (rows > 0) {
+            log.warn("{}封邮件发送中断，重新待发送", rows);
+            wakeup.release();
+        }
+        // 计数只在这里按数据库校正，后台线程的轮询不查询总数
+        refreshPending();
+    }
+
+    /**
+     * 删除超过保留时间的已发送和发送失败的邮件，每批一条 DELETE ... LIMIT，避免长事务与大范围锁
+     * @return 删除的邮件数
+     */
+    @Scheduled(cron = "${mail.outbox.purge-cron:0 40 3 * * ?}")
+    public synchronized long purge() {
+        Date before = new Date(System.currentTimeMillis() - retention);
+        long deleted = 0;
+        int rows;
+        do {
+            rows = emailOutboxDao.deleteFinished(before, purgeBatch);
+            deleted += rows;
+        } while (rows >= purgeBatch);
+        if (deleted > 0) {
+            log.info("清理发件箱邮件{}封", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * 认领并发送一批到期的邮件
+     * @return 本批认领的邮件数
+     */
+    public int dispatchOnce() {
+        Date now = new Date();
+        List<EmailOutbox> claimed = new ArrayList<>();
+        List<EmailOutbox> batch = new ArrayList<>();
+        for (EmailOutbox outbox : emailOutboxDao.selectDue(now, batchSize)) {
+            if (emailOutboxDao.claim(outbox.getId(), now) == 1) {
+                claimed.add(outbox);
+                // 已过期的邮件(如失效的验证码)不再发送
+                if (isExpired(outbox, now.getTime())) {
+                    expire(outbox);
+                } else {
+                    batch.add(outbox);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+        return claimed.size();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                // 满批说明可能还有积压，直接继续；否则等待新邮件或轮询间隔
+                if (dispatchOnce() < batchSize) {
+                    wakeup.tryAcquire(pollInterval, TimeUnit.MILLISECONDS);
+                    wakeup.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("发件箱处理失败", e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(pollInterval);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void send(List<EmailOutbox> batch) {
+        Map<MimeMessage, EmailOutbox> messages = new IdentityHashMap<>();
+        Map<EmailOutbox, Exception> errors = new IdentityHashMap<>();
+        for (EmailOutbox outbox : batch) {
+            try {
+                messages.put(toMessage(outbox), outbox);
+            } catch (MessagingException e) {
+                errors.put(outbox, e);
+            }
+        }
+        if (!messages.isEmpty()) {
+            try {
+                // 一次调用发送多封邮件，JavaMailSender 只建立一个连接
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    messages.values().forEach(outbox -> errors.put(outbox, e));
+                } else {
+                    e.getFailedMessages().forEach((message, error) -> {
+                        EmailOutbox outbox = messages.get(message);
+                        if (outbox != null) {
+                            errors.put(outbox, error);
+                        }
+                    });
+                }
+            } catch (MailException e) {
+                messages.values().forEach(outbox -> errors.put(outbox, e));
+            }
+        }
+        for (EmailOutbox outbox : batch) {
+            finish(outbox, errors.get(outbox));
+        }
+    }
+
+    private void finish(EmailOutbox outbox, Exception error) {
+        int attempts = (outbox.getAttempts() == null ? 0 : outbox.getAttempts()) + 1;
+        outbox.setAttempts(attempts);
+        if (error == null) {
+            outbox.setStatus(EmailOutbox.SENT);
+            outbox.setLastError(null);
+            sent.increment();
+            pending.decrementAndGet();
+        } else if (attempts >= maxAttempts || isExpired(outbox, System.currentTimeMillis() + backoff(attempts))) {
+            // 次数用完，或等到下次重试时已经过期
+            outbox.setStatus(EmailOutbox.FAILED);
+            outbox.setLastError(abbreviate(error));
+            failed.increment();
+            pending.decrementAndGet();
+            log.warn("邮件发送失败，已放弃: id={}, to={}", outbox.getId(), outbox.getToAddress(), error);
+        } else {
+            outbox.setStatus(EmailOutbox.PENDING);
+            outbox.setNextAttemptTime(new Date(System.currentTimeMillis() + backoff(attempts)));
+            outbox.setLastError(abbreviate(error));
+            retried.increment();
+        }
+        emailOutboxDao.finish(outbox);
+    }
+
+    private void expire(EmailOutbox outbox) {
+        outbox.setStatus(EmailOutbox.FAILED);
+        outbox.setLastError("已过期");
+        failed.increment();
+        pending.decrementAndGet();
+        emailOutboxDao.finish(outbox);
+    }
+
+    private static boolean isExpired(EmailOutbox outbox, long time) {
+        return outbox.getExpireTime() != null && outbox.getExpireTime().getTime() <= time;
+    }
+
+    /**
+     * 第 attempts 次失败后的等待时间：backoff * 2^(attempts-1)，不超过 maxBackoff
+     */
+    long backoff(int attempts) {
+        int shift = Math.min(attempts - 1, 30);
+        return Math.min(maxBackoff, backoff << shift);
+    }
+
+    private MimeMessage toMessage(EmailOutbox outbox) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, "UTF-8");
+        helper.setSubject(outbox.getSubject());
+        helper.setText(outbox.getContent() == null ? "" : outbox.getContent(), true);
+        helper.setFrom(from);
+        helper.setTo(outbox.getToAddress());
+        return mimeMessage;
+    }
+
+    private void refreshPending() {
+        pending.set(emailOutboxDao.countPending());
+    }
+
+    private static String abbreviate(Exception error) {
+        String message = String.valueOf(error.getMessage());
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
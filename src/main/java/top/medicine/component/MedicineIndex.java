@@ -0,0 +1,76 @@
+package top.medicine.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.medicine.dao.MedicineDao;
+import top.medicine.entity.Medicine;
+import top.medicine.utils.Assert;
+import top.medicine.utils.FullTextIndex;
+
+import javax.annotation.PostConstruct;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @description 药品全文检索的内存倒排索引
+ * 启动时从数据库全量构建，药品保存、删除时增量维护
+ */
+@Component
+public class MedicineIndex {
+
+    // 字段权重：药品名称 > 关键词 > 药品功效
+    private static final double[] WEIGHTS = {4.0, 2.0, 1.0};
+
+    @Autowired
+    private MedicineDao medicineDao;
+
+    private volatile FullTextIndex index = new FullTextIndex(WEIGHTS);
+
+    @PostConstruct
+    public void rebuild() {
+        List<Medicine> medicines = medicineDao.selectList(new QueryWrapper<>());
+        FullTextIndex newIndex = new FullTextIndex(WEIGHTS);
+        medicines.forEach(medicine -> add(newIndex, medicine));
+        index = newIndex;
+    }
+
+    /**
+     * 新增或更新一条药品的索引
+     */
+    public void put(Medicine medicine) {
+        if (medicine == null || medicine.getId() == null) {
+            return;
+        }
+        add(index, medicine);
+    }
+
+    /**
+     * 删除一条药品的索引
+     */
+    public void remove(Serializable id) {
+        if (id == null) {
+            return;
+        }
+        index.remove(Integer.valueOf(id.toString()));
+    }
+
+    /**
+     * 按关键词检索药品，名称、关键词、功效均参与匹配
+     * @return 命中的药品id，按相关度从高到低排序
+     */
+    public List<Integer> search(String keyword) {
+        if (Assert.isEmpty(keyword)) {
+            return Collections.emptyList();
+        }
+        return index.search(keyword, id -> true);
+    }
+
+    private static void add(FullTextIndex index, Medicine medicine) {
+        index.put(medicine.getId(),
+                medicine.getMedicineName(),
+                medicine.getKeyword(),
+                medicine.getMedicineEffect());
+    }
+}
@@ -0,0 +1,49 @@
+package top.medicine.component;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * @description 上传文件的存储
+ * 默认存到阿里云 OSS({@link OssClient})，配置 storage.type=local 时存到本机磁盘({@link LocalStorage})并由本应用提供下载
+ */
+public interface ObjectStorage {
+
+    /**
+     * 保存对象，同名对象被覆盖
+     * @param key 对象名
+     * @param in 对象内容，由调用方关闭
+     * @param size 内容长度
+     */
+    void put(String key, InputStream in, long size) throws IOException;
+
+    /**
+     * 对象的访问地址
+     */
+    String url(String key);
+
+    /**
+     * 存储的标识，如 oss:存储桶名，去重记录按它区分不同存储中的对象
+     */
+    String backend();
+
+    /**
+     * 文件扩展名，包含点号
+     */
+    static String getFileExtension(MultipartFile file) {
+        String filename = file.getOriginalFilename();
+        assert filename != null;
+        return getFileExtension(filename);
+    }
+
+    /**
+     * 小写的文件扩展名，包含点号，没有扩展名时返回空串
+     */
+    static String getFileExtension(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot < 0 || filename.indexOf('/', dot) >= 0 ? "" : filename.substring(dot).toLowerCase(Locale.ROOT);
+    }
+}
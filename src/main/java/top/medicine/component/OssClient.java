@@ -1,21 +1,36 @@
 package top.medicine.component;
 
-import cn.hutool.core.util.IdUtil;
+import com.aliyun.oss.ClientConfiguration;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClient;
-import com.aliyun.oss.model.CannedAccessControlList;
-import com.aliyun.oss.model.CreateBucketRequest;
-import com.aliyun.oss.model.PutObjectRequest;
-import com.aliyun.oss.model.PutObjectResult;
+import com.aliyun.oss.model.*;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
-import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
+/**
+ * @description 阿里云 OSS 上传
+ * 整个应用共用一个 OSS 客户端及其连接池，存储桶只在启动时检查一次；
+ * 大文件按分片边读边传，多个分片并行上传，内存中同时最多保留 线程数+1 个分片
+ */
+@Slf4j
 @Component
-public class OssClient {
+@ConditionalOnProperty(name = "storage.type", havingValue = "oss", matchIfMissing = true)
+public class OssClient implements ObjectStorage {
 
     @Value("${oss.bucket-name}")
     private String bucketName;
@@ -29,35 +44,168 @@ public class OssClient {
     @Value("${oss.access-secret}")
     private String accessKeySecret;
 
-    protected OSSClient createOssClient() {
-        return new OSSClient(endPoint, accessKeyId, accessKeySecret);
+    // 连接池大小
+    @Value("${oss.max-connections:64}")
+    private int maxConnections = 64;
+
+    // 超过该大小(字节)的文件使用分片上传
+    @Value("${oss.multipart-threshold:8388608}")
+    private long multipartThreshold = 8388608;
+
+    // 分片大小(字节)，OSS 要求除最后一个分片外不小于100KB
+    @Value("${oss.part-size:5242880}")
+    private int partSize = 5242880;
+
+    // 并行上传分片的线程数
+    @Value("${oss.upload-threads:4}")
+    private int uploadThreads = 4;
+
+    private OSS ossClient;
+
+    private ExecutorService partExecutor;
+
+    private volatile boolean bucketReady;
+
+    protected OSS createOssClient() {
+        ClientConfiguration configuration = new ClientConfiguration();
+        configuration.setMaxConnections(maxConnections);
+        return new OSSClient(endPoint, accessKeyId, accessKeySecret, configuration);
+    }
+
+    @PostConstruct
+    public void init() {
+        ossClient = createOssClient();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(uploadThreads, uploadThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "oss-upload-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        partExecutor = executor;
+        try {
+            ensureBucket();
+        } catch (RuntimeException e) {
+            // 启动时 OSS 不可用不影响应用启动，首次上传时再检查
+            log.warn("检查 OSS 存储桶失败: {}", bucketName, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partExecutor.shutdownNow();
+        ossClient.shutdown();
+    }
+
+    @Override
+    public void put(String key, InputStream in, long size) throws IOException {
+        if (!bucketReady) {
+            ensureBucket();
+        }
+        if (size > multipartThreshold) {
+            multipartUpload(key, in);
+        } else {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(size);
+            ossClient.putObject(new PutObjectRequest(bucketName, key, in, metadata));
+        }
+    }
+
+    @Override
+    public String url(String key) {
+        return "https://" + bucketName + "." + endPoint + "/" + key;
     }
 
-    public String upload(MultipartFile file, String path) throws IOException {
-        if (file == null || path == null) {
-            return null;
+    @Override
+    public String backend() {
+        return "oss:" + bucketName;
+    }
+
+    /**
+     * 存储桶不存在时创建为公共读，已存在时设置为公共读，成功后不再检查
+     */
+    private synchronized void ensureBucket() {
+        if (bucketReady) {
+            return;
         }
-        OSSClient ossClient = createOssClient();
-        if (!ossClient.doesBucketExist(bucketName)) {
-            ossClient.createBucket(bucketName);
+        if (ossClient.doesBucketExist(bucketName)) {
+            ossClient.setBucketAcl(bucketName, CannedAccessControlList.PublicRead);
+        } else {
             CreateBucketRequest createBucketRequest = new CreateBucketRequest(bucketName);
             createBucketRequest.setCannedACL(CannedAccessControlList.PublicRead);
             ossClient.createBucket(createBucketRequest);
         }
-        String extension = OssClient.getFileExtension(file);
-        //设置文件路径
-        String fileUrl = path + "/" + IdUtil.simpleUUID() + extension;
-        String url = "https://" + bucketName + "." + endPoint + "/" + fileUrl;
-        PutObjectResult result = ossClient.putObject(new PutObjectRequest(bucketName, fileUrl, file.getInputStream()));
-        //上传文件
-        ossClient.setBucketAcl(bucketName, CannedAccessControlList.PublicRead);
-        return url;
-    }
-
-    
-    public static String getFileExtension(MultipartFile file) {
-        String filename = file.getOriginalFilename();
-        assert filename != null;
-        return filename.substring(filename.lastIndexOf("."));
+        bucketReady = true;
+    }
+
+    /**
+     * 分片上传：当前线程顺序读取分片，上传线程并行上传，任一分片失败时取消整个上传
+     */
+    private void multipartUpload(String key, InputStream in) throws IOException {
+        String uploadId = ossClient.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key)).getUploadId();
+        // 限制已读取未上传完的分片数
+        Semaphore buffers = new Semaphore(uploadThreads + 1);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<PartETag>> parts = new ArrayList<>();
+        try {
+            for (int partNumber = 1; !failed.get(); partNumber++) {
+                buffers.acquire();
+                byte[] part = in.readNBytes(partSize);
+                if (part.length == 0) {
+                    buffers.release();
+                    break;
+                }
+                parts.add(partExecutor.submit(uploadPart(key, uploadId, partNumber, part, buffers, failed)));
+                if (part.length < partSize) {
+                    break;
+                }
+            }
+            List<PartETag> partETags = new ArrayList<>(parts.size());
+            for (Future<PartETag> part : parts) {
+                partETags.add(part.get());
+            }
+            ossClient.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(key, uploadId, parts);
+            throw new InterruptedIOException("分片上传被中断: " + key);
+        } catch (ExecutionException e) {
+            abort(key, uploadId, parts);
+            throw new IOException("分片上传失败: " + key, e.getCause());
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId, parts);
+            throw e;
+        }
+    }
+
+    private Callable<PartETag> uploadPart(String key, String uploadId, int partNumber, byte[] part,
+                                          Semaphore buffers, AtomicBoolean failed) {
+        return () -> {
+            try {
+                UploadPartRequest request = new UploadPartRequest();
+                request.setBucketName(bucketName);
+                request.setKey(key);
+                request.setUploadId(uploadId);
+                request.setPartNumber(partNumber);
+                request.setInputStream(new ByteArrayInputStream(part));
+                request.setPartSize(part.length);
+                return ossClient.uploadPart(request).getPartETag();
+            } catch (RuntimeException e) {
+                failed.set(true);
+                throw e;
+            } finally {
+                buffers.release();
+            }
+        };
+    }
+
+    private void abort(String key, String uploadId, List<Future<PartETag>> parts) {
+        parts.forEach(part -> part.cancel(false));
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+        } catch (RuntimeException e) {
+            log.warn("取消分片上传失败: {}", key, e);
+        }
     }
 }
@@ -0,0 +1,185 @@
+package top.medicine.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.medicine.dao.PageviewDao;
+import top.medicine.entity.Pageview;
+import top.medicine.utils.Assert;
+import top.medicine.utils.HyperLogLog;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description 疾病浏览量的写回计数器
+ * 详情页浏览只在内存中累加，定时批量写回数据库，应用关闭前再写回一次
+ * 访客数用 HyperLogLog 估计，写回时在同一事务中锁住数据库中的估计器再合并，多个节点同时写回同一疾病不会丢失访客
+ */
+@Slf4j
+@Component
+public class PageviewCounter {
+
+    // 每条 upsert 语句最多写回的疾病数
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private PageviewDao pageviewDao;
+
+    @Autowired(required = false)
+    private TransactionTemplate transactionTemplate;
+
+    // 疾病id -> 累计浏览次数，只增不减
+    private final Map<Integer, LongAdder> counters = new ConcurrentHashMap<>();
+
+    // 疾病id -> 已写回数据库的次数，只在 flush 中修改
+    private final Map<Integer, Long> flushed = new ConcurrentHashMap<>();
+
+    // 疾病id -> 尚未写回的访客估计器，只在 compute/merge/remove 中修改，保证写回时不丢访客
+    private final Map<Integer, HyperLogLog> sketches = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次浏览
+     * @param visitor 访客标识，为空时只计浏览量
+     */
+    public void increment(Integer illnessId, String visitor) {
+        if (illnessId == null) {
+            return;
+        }
+        counters.computeIfAbsent(illnessId, id -> new LongAdder()).increment();
+        if (Assert.notEmpty(visitor)) {
+            sketches.compute(illnessId, (id, sketch) -> {
+                HyperLogLog hll = sketch == null ? new HyperLogLog() : sketch;
+                hll.offer(visitor);
+                return hll;
+            });
+        }
+    }
+
+    /**
+     * 尚未写回数据库的浏览次数
+     */
+    public long pending(Integer illnessId) {
+        LongAdder counter = counters.get(illnessId);
+        if (counter == null) {
+            return 0;
+        }
+        return counter.sum() - flushed.getOrDefault(illnessId, 0L);
+    }
+
+    /**
+     * 估计的访客数，数据库中的估计器与尚未写回的估计器合并计算
+     * @param persisted 数据库中的估计器
+     */
+    public long visitors(Integer illnessId, byte[] persisted) {
+        HyperLogLog hll = load(illnessId, persisted);
+        HyperLogLog sketch = sketches.get(illnessId);
+        if (sketch != null) {
+            hll.merge(sketch);
+        }
+        return hll.cardinality();
+    }
+
+    /**
+     * 把累计的增量批量写回数据库，写回失败的增量留到下一次
+     */
+    @Scheduled(fixedDelayString = "${pageview.flush-interval:5000}")
+    public synchronized void flush() {
+        Map<Integer, HyperLogLog> dirty = new HashMap<>();
+        for (Integer illnessId : new ArrayList<>(sketches.keySet())) {
+            HyperLogLog sketch = sketches.remove(illnessId);
+            if (sketch != null) {
+                dirty.put(illnessId, sketch);
+            }
+        }
+        // 计数只增不减，本次没读到的增量下次一定能读到，不会丢失
+        Map<Integer, Long> snapshot = new HashMap<>();
+        List<Pageview> deltas = new ArrayList<>();
+        counters.forEach((illnessId, counter) -> {
+            long sum = counter.sum();
+            long delta = sum - flushed.getOrDefault(illnessId, 0L);
+            if (delta > 0 || dirty.containsKey(illnessId)) {
+                snapshot.put(illnessId, sum);
+                deltas.add(Pageview.builder().illnessId(illnessId).pageviews((int) delta).build());
+            }
+        });
+        for (int from = 0; from < deltas.size(); from += BATCH_SIZE) {
+            List<Pageview> batch = deltas.subList(from, Math.min(from + BATCH_SIZE, deltas.size()));
+            try {
+                writeBatch(batch, dirty);
+            } catch (RuntimeException e) {
+                log.warn("浏览量写回失败，{}条增量留待下次写回", batch.size(), e);
+                batch.stream().filter(pageview -> dirty.containsKey(pageview.getIllnessId()))
+                        .forEach(pageview -> sketches.merge(pageview.getIllnessId(), dirty.get(pageview.getIllnessId()), HyperLogLog::merge));
+                continue;
+            }
+            batch.forEach(pageview -> flushed.put(pageview.getIllnessId(), snapshot.get(pageview.getIllnessId())));
+        }
+    }
+
+    /**
+     * 写回一批增量，有访客估计器要合并时，读取、合并、写回在同一事务中完成
+     */
+    private void writeBatch(List<Pageview> batch, Map<Integer, HyperLogLog> dirty) {
+        List<Integer> ids = new ArrayList<>();
+        batch.forEach(pageview -> {
+            pageview.setVisitorSketch(null);
+            if (dirty.containsKey(pageview.getIllnessId())) {
+                ids.add(pageview.getIllnessId());
+            }
+        });
+        if (ids.isEmpty()) {
+            pageviewDao.upsertIncrements(batch);
+            return;
+        }
+        // 在事务外插入缺少的记录，避免多个节点在事务中对同一条新记录加锁时死锁
+        Collections.sort(ids);
+        pageviewDao.insertMissing(ids);
+        if (transactionTemplate == null) {
+            mergeSketches(batch, dirty, ids);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> mergeSketches(batch, dirty, ids));
+    }
+
+    /**
+     * 按疾病id顺序锁住数据库中的访客估计器，与尚未写回的合并后连同浏览量增量一起写回
+     */
+    private void mergeSketches(List<Pageview> batch, Map<Integer, HyperLogLog> dirty, List<Integer> ids) {
+        Map<Integer, HyperLogLog> merged = new HashMap<>(ids.size());
+        ids.forEach(id -> merged.put(id, dirty.get(id).copy()));
+        pageviewDao.selectList(new QueryWrapper<Pageview>().select("illness_id", "visitor_sketch").in("illness_id", ids)
+                        .orderByAsc("illness_id").last("FOR UPDATE"))
+                .forEach(pageview -> merged.get(pageview.getIllnessId()).merge(load(pageview.getIllnessId(), pageview.getVisitorSketch())));
+        batch.forEach(pageview -> {
+            HyperLogLog hll = merged.get(pageview.getIllnessId());
+            if (hll != null) {
+                pageview.setVisitorSketch(hll.toBytes());
+            }
+        });
+        pageviewDao.upsertIncrements(batch);
+    }
+
+    private static HyperLogLog load(Integer illnessId, byte[] bytes) {
+        try {
+            return HyperLogLog.fromBytes(bytes);
+        } catch (IllegalArgumentException e) {
+            log.warn("疾病{}的访客估计器已损坏，按空估计器处理", illnessId, e);
+            return new HyperLogLog();
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+}
@@ -0,0 +1,105 @@
+package top.medicine.component;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import top.medicine.dao.HistoryDao;
+import top.medicine.entity.History;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @description 每个用户最近的搜索记录
+ * 最近活跃的用户保存在 LRU 缓存中，每个用户只保留按关键词去重后的最近 {@link #SIZE} 条；
+ * 首次访问时用一条走 (user_id, update_time) 索引的 LIMIT 查询加载，之后随搜索记录的写入更新
+ */
+@Component
+public class RecentHistory {
+
+    // 每个用户保留的搜索记录条数
+    public static final int SIZE = 10;
+
+    @Autowired
+    private HistoryDao historyDao;
+
+    // 缓存的用户数
+    @Value("${history.recent-users:10000}")
+    private int capacity = 10000;
+
+    // 用户多久不活跃后移出缓存(毫秒)
+    @Value("${history.recent-ttl:1800000}")
+    private long ttl = 1800000;
+
+    // 用户id -> 最近的搜索记录
+    private LRUCache<Integer, Ring> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheUtil.newLRUCache(capacity, ttl);
+    }
+
+    /**
+     * 用户最近的搜索记录，按时间从新到旧排列，关键词不重复
+     */
+    public List<History> get(Integer userId) {
+        return ring(userId).snapshot();
+    }
+
+    /**
+     * 写入一条搜索记录
+     */
+    public void add(History history) {
+        if (history.getUserId() == null) {
+            return;
+        }
+        ring(history.getUserId()).add(history);
+    }
+
+    /**
+     * 用户的搜索记录被修改或删除后，下次访问时重新加载
+     */
+    public void evict(Integer userId) {
+        cache.remove(userId);
+    }
+
+    private Ring ring(Integer userId) {
+        return cache.get(userId, true, () -> new Ring(historyDao.selectRecent(userId, SIZE)));
+    }
+
+    /**
+     * 最多 {@link #SIZE} 条、按关键词去重的搜索记录，最新的在最前
+     */
+    private static class Ring {
+
+        private final LinkedList<History> entries = new LinkedList<>();
+
+        Ring(List<History> recent) {
+            recent.stream().limit(SIZE).forEach(entries::addLast);
+        }
+
+        synchronized void add(History history) {
+            Iterator<History> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                if (Objects.equals(iterator.next().getKeyword(), history.getKeyword())) {
+                    iterator.remove();
+                    break;
+                }
+            }
+            entries.addFirst(history);
+            if (entries.size() > SIZE) {
+                entries.removeLast();
+            }
+        }
+
+        synchronized List<History> snapshot() {
+            return new ArrayList<>(entries);
+        }
+    }
+}
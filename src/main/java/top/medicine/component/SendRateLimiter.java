@@ -0,0 +1,55 @@
+package top.medicine.component;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * @description 邮箱验证码的发送频率限制
+ * 按邮箱和客户端IP分别做固定窗口计数，客户端IP在反向代理之后取自 X-Forwarded-For，计数保存在 {@link CodeStore} 中，多节点时共享
+ */
+@Component
+public class SendRateLimiter {
+
+    @Autowired
+    private CodeStore codeStore;
+
+    // 同一邮箱每个窗口内允许发送的次数
+    @Value("${verification.email-limit:1}")
+    private int emailLimit = 1;
+
+    // 邮箱窗口长度(毫秒)
+    @Value("${verification.email-window:60000}")
+    private long emailWindow = 60000;
+
+    // 同一IP每个窗口内允许发送的次数
+    @Value("${verification.ip-limit:10}")
+    private int ipLimit = 10;
+
+    // IP窗口长度(毫秒)
+    @Value("${verification.ip-window:3600000}")
+    private long ipWindow = 3600000;
+
+    /**
+     * 记录一次发送
+     * @param ip 客户端IP，为空时只按邮箱限制
+     * @return 超过任一限制时返回 false
+     */
+    public boolean tryAcquire(String email, String ip) {
+        // 邮箱不区分大小写，同一邮箱换大小写不能绕过限制
+        String emailKey = "rate:email:" + email.trim().toLowerCase(Locale.ROOT);
+        String ipKey = ip == null ? null : "rate:ip:" + ip;
+        // 两个限制都未用完才计数，被一个限制拒绝时不占用另一个的次数
+        if (codeStore.count(emailKey) >= emailLimit || (ipKey != null && codeStore.count(ipKey) >= ipLimit)) {
+            return false;
+        }
+        // 并发请求可能同时通过检查，计数后再按计数结果判断
+        boolean allowed = codeStore.increment(emailKey, emailWindow) <= emailLimit;
+        if (ipKey != null) {
+            allowed &= codeStore.increment(ipKey, ipWindow) <= ipLimit;
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,121 @@
+package top.medicine.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.medicine.dao.IllnessDao;
+import top.medicine.dao.IllnessMedicineDao;
+import top.medicine.dao.MedicineDao;
+import top.medicine.dao.PageviewDao;
+import top.medicine.entity.*;
+import top.medicine.utils.Assert;
+import top.medicine.utils.PrefixTrie;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * @description 搜索框的输入联想：疾病名称、药品名称与药品关键词，按浏览量排序
+ * 数据来自内存中的只读前缀树，疾病或药品变化后标记为脏，由定时任务整体重建，浏览量排名也随之定期刷新
+ */
+@Component
+public class Typeahead {
+
+    // 每个前缀最多返回的条数
+    public static final int TOP_K = 10;
+
+    // 药品关键词的分隔符
+    private static final Pattern KEYWORD_SEPARATOR = Pattern.compile("[\\s,，、;；/|]+");
+
+    @Autowired
+    private IllnessDao illnessDao;
+
+    @Autowired
+    private MedicineDao medicineDao;
+
+    @Autowired
+    private IllnessMedicineDao illnessMedicineDao;
+
+    @Autowired
+    private PageviewDao pageviewDao;
+
+    // 没有数据变化时，按最新浏览量重建的间隔(毫秒)
+    @Value("${typeahead.rank-refresh:300000}")
+    private long rankRefresh = 300000;
+
+    private volatile PrefixTrie<Map<String, Object>> trie = PrefixTrie.<Map<String, Object>>builder(TOP_K).build();
+
+    private volatile boolean dirty;
+
+    private volatile long builtAt;
+
+    /**
+     * 从数据库全量构建前缀树并替换，构建期间查询仍使用旧树
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        dirty = false;
+        Map<Integer, Long> illnessViews = new HashMap<>();
+        pageviewDao.selectList(new QueryWrapper<Pageview>().select("illness_id", "pageviews"))
+                .forEach(p -> illnessViews.merge(p.getIllnessId(), p.getPageviews() == null ? 0L : p.getPageviews(), Long::sum));
+        // 药品的热度取其关联疾病的浏览量之和
+        Map<Integer, Long> medicineViews = new HashMap<>();
+        illnessMedicineDao.selectList(new QueryWrapper<IllnessMedicine>().select("illness_id", "medicine_id"))
+                .forEach(r -> medicineViews.merge(r.getMedicineId(), illnessViews.getOrDefault(r.getIllnessId(), 0L), Long::sum));
+
+        PrefixTrie.Builder<Map<String, Object>> builder = PrefixTrie.builder(TOP_K);
+        for (Illness illness : illnessDao.selectList(new QueryWrapper<Illness>().select("id", "illness_name"))) {
+            if (Assert.notEmpty(illness.getIllnessName())) {
+                builder.add(illness.getIllnessName(), suggestion("illness", illness.getIllnessName(), illness.getId()),
+                        illnessViews.getOrDefault(illness.getId(), 0L));
+            }
+        }
+        Map<String, Long> keywords = new HashMap<>();
+        for (Medicine medicine : medicineDao.selectList(new QueryWrapper<Medicine>().select("id", "medicine_name", "keyword"))) {
+            long views = medicineViews.getOrDefault(medicine.getId(), 0L);
+            if (Assert.notEmpty(medicine.getMedicineName())) {
+                builder.add(medicine.getMedicineName(), suggestion("medicine", medicine.getMedicineName(), medicine.getId()), views);
+            }
+            if (Assert.notEmpty(medicine.getKeyword())) {
+                for (String keyword : KEYWORD_SEPARATOR.split(medicine.getKeyword().trim())) {
+                    if (!keyword.isEmpty()) {
+                        keywords.merge(keyword, views, Math::max);
+                    }
+                }
+            }
+        }
+        keywords.forEach((keyword, views) -> builder.add(keyword, suggestion("keyword", keyword, null), views));
+        trie = builder.build();
+        builtAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 疾病或药品发生变化，下次定时任务时重建
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    @Scheduled(fixedDelayString = "${typeahead.refresh-interval:2000}")
+    public void refresh() {
+        if (dirty || System.currentTimeMillis() - builtAt >= rankRefresh) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 以 prefix 开头的联想词
+     * @param limit 返回条数，不超过 {@link #TOP_K}
+     * @return 每条包含 text、type(illness/medicine/keyword)，疾病与药品还包含 id
+     */
+    public List<Map<String, Object>> suggest(String prefix, int limit) {
+        return trie.search(prefix, limit);
+    }
+
+    private static Map<String, Object> suggestion(String type, String text, Integer id) {
+        return id == null ? Map.of("type", type, "text", text) : Map.of("type", type, "text", text, "id", id);
+    }
+}
@@ -0,0 +1,22 @@
+package top.medicine.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+
+/**
+ * @description 数据库迁移
+ * 按旧版 smart-medicine.sql 建好的库没有迁移记录，启动时以版本0作为基线执行 db/migration 下的全部脚本；
+ * 按当前 smart-medicine.sql 新建的库已带有最新版本的基线记录，只执行之后新增的脚本
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayConfigurationCustomizer flywayBaseline(@Value("${spring.flyway.baseline-on-migrate:true}") boolean baselineOnMigrate,
+                                                        @Value("${spring.flyway.baseline-version:0}") String baselineVersion) {
+        return configuration -> configuration.baselineOnMigrate(baselineOnMigrate).baselineVersion(baselineVersion);
+    }
+}
@@ -2,7 +2,6 @@ package top.medicine.controller;
 
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import top.medicine.component.EmailClient;
@@ -11,8 +10,6 @@ import top.medicine.entity.User;
 import top.medicine.service.*;
 import top.medicine.utils.Assert;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 
@@ -41,8 +38,10 @@ public class BaseController<T> {
 
     @Autowired
     protected EmailClient emailClient;
+
+    // 控制器是单例，这里注入的是 Spring 按当前请求解析的会话代理，每次调用都落到当前请求自己的会话上
+    @Autowired
     protected HttpSession session;
-    protected User loginUser;
 
     public BaseController() {
     }
@@ -83,11 +82,17 @@ public class BaseController<T> {
     }
 
     /**
-     * 数据准备
+     * 当前请求的登录用户，未登录时为 null
+     */
+    protected User loginUser() {
+        return (User) session.getAttribute("loginUser");
+    }
+
+    /**
+     * 当前访客标识，已登录用用户id，未登录用会话id
      */
-    @ModelAttribute
-    public void setReqAndRes(HttpServletRequest request, HttpServletResponse response) {
-        this.session = request.getSession(true);
-        loginUser = (User) session.getAttribute("loginUser");
+    protected String visitorId() {
+        User loginUser = loginUser();
+        return loginUser != null ? "u" + loginUser.getId() : "s" + session.getId();
     }
 }
@@ -2,16 +2,16 @@ package top.medicine.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import top.medicine.component.OssClient;
+import top.medicine.component.ContentStore;
+import top.medicine.component.LocalStorage;
 import top.medicine.dto.RespResult;
 import top.medicine.entity.User;
 import top.medicine.utils.Assert;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 
@@ -23,18 +23,43 @@ import java.io.IOException;
 public class FileController extends BaseController<User> {
 
     @Autowired
-    private OssClient ossClient;
+    private ContentStore contentStore;
+
+    // 只在 storage.type=local 时存在
+    @Autowired(required = false)
+    private LocalStorage localStorage;
 
     /**
-     * 将文件上传到阿里云OSS
+     * 上传图片或视频，默认存到阿里云OSS，内容相同的文件只保存一份
      * @param file 要上传的文件
      */
     @PostMapping(value = "/upload",consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public RespResult upload(@RequestParam("file") MultipartFile file) throws IOException {
-        String url = ossClient.upload(file, String.valueOf(loginUser.getId()));
+        if (loginUser() == null) {
+            return RespResult.fail("请先登录");
+        }
+        if (!ContentStore.accepts(file.getOriginalFilename())) {
+            return RespResult.fail("只能上传图片或视频");
+        }
+        String url = contentStore.upload(file);
         if (Assert.isEmpty(url)) {
             return RespResult.fail("上传失败", url);
         }
         return RespResult.success("上传成功", url);
     }
+
+    /**
+     * 下载本地存储的文件，支持 Range 与 ETag
+     * @param dir 上传时的目录
+     * @param name 文件名
+     */
+    @GetMapping("/{dir}/{name:.+}")
+    public void download(@PathVariable String dir, @PathVariable String name,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (localStorage == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        localStorage.serve(dir + "/" + name, request, response);
+    }
 }
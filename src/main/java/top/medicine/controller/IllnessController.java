@@ -23,4 +23,13 @@ public class IllnessController extends BaseController<Illness> {
     public RespResult all() {
         return RespResult.success("OK", illnessService.all());
     }
+
+    /**
+     * 最近24小时的热门疾病
+     */
+    @ResponseBody
+    @PostMapping("trending")
+    public RespResult trending(Integer limit) {
+        return RespResult.success("OK", illnessService.trending(limit));
+    }
 }
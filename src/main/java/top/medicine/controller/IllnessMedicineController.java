@@ -1,10 +1,12 @@
 package top.medicine.controller;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import top.medicine.dto.RespResult;
 import top.medicine.entity.IllnessMedicine;
 
+import java.util.List;
+
 
 /**
  * @description  疾病对应药品相关操作
@@ -13,4 +15,30 @@ import top.medicine.entity.IllnessMedicine;
 @RequestMapping("illness_medicine")
 public class IllnessMedicineController extends BaseController<IllnessMedicine> {
 
+    /**
+     * 与给定疾病关联的药品
+     * @param illnessIds 疾病id
+     * @param match all 表示与全部疾病都关联，any 表示与任一疾病关联
+     */
+    @ResponseBody
+    @PostMapping("medicines")
+    public RespResult medicines(@RequestParam List<Integer> illnessIds, @RequestParam(defaultValue = "all") String match) {
+        if (!"all".equals(match) && !"any".equals(match)) {
+            return RespResult.fail("match 只能是 all 或 any");
+        }
+        return RespResult.success("OK", illnessMedicineService.findMedicinesOf(illnessIds, "all".equals(match)));
+    }
+
+    /**
+     * 与给定疾病共用药品的其他疾病
+     * @param illnessId 疾病id
+     */
+    @ResponseBody
+    @PostMapping("related")
+    public RespResult related(Integer illnessId) {
+        if (illnessId == null) {
+            return RespResult.fail("疾病ID不能为空");
+        }
+        return RespResult.success("OK", illnessMedicineService.findRelatedIllnesses(illnessId));
+    }
 }
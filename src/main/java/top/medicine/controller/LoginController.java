@@ -1,26 +1,41 @@
 package top.medicine.controller;
 import cn.hutool.core.util.StrUtil;
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import top.medicine.component.CodeStore;
+import top.medicine.component.SendRateLimiter;
 import top.medicine.dto.RespResult;
 import top.medicine.entity.User;
 import top.medicine.utils.Assert;
 
-import java.util.Calendar;
-import java.util.Date;
+import javax.servlet.http.HttpServletRequest;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @description  用户登陆与注册
  */
 @RestController
-@AllArgsConstructor
 @RequestMapping(value = "login")
 public class LoginController extends BaseController<User> {
 
+    // 验证码在 CodeStore 中的键前缀
+    private static final String CODE_PREFIX = "code:email:";
+
+    // 验证码保存在服务端的过期存储中，不占用会话，多节点时可共享
+    @Autowired
+    protected CodeStore codeStore;
+
+    @Autowired
+    protected SendRateLimiter sendRateLimiter;
+
+    // 验证码有效期(分钟)，与邮件中提示的有效期一致
+    @Value("${spring.mail.valid:5}")
+    private int valid = 5;
+
     /**
      * 注册
      * @param user 用户信息
@@ -32,17 +47,10 @@ public class LoginController extends BaseController<User> {
         if (Assert.isEmpty(email)) {
             return RespResult.fail("邮箱不能为空");
         }
-        Map<String, Object> codeData = (Map<String, Object>) session.getAttribute("EMAIL_CODE" + email);
-        if (codeData == null) {
-            return RespResult.fail("尚未发送验证码");
-        }
-        String sentCode = (String) codeData.get("code");
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime((Date) codeData.get("time"));
-        calendar.add(Calendar.MINUTE, 5);
-        if (System.currentTimeMillis() > calendar.getTime().getTime()) {
-            session.removeAttribute("EMAIL_CODE" + email);
-            return RespResult.fail("验证码已经超时");
+        // 过期的验证码已被存储清除，与未发送无法区分
+        String sentCode = codeStore.get(CODE_PREFIX + email);
+        if (sentCode == null) {
+            return RespResult.fail("验证码已经超时或尚未发送");
         }
         if (!sentCode.equals(code)) {
             return RespResult.fail("验证码错误");
@@ -54,6 +62,7 @@ public class LoginController extends BaseController<User> {
         user.setRoleStatus(3);
         user.setImgPath("https://moti-cloud-v2.oss-cn-beijing.aliyuncs.com/Snipaste_2022-05-01_15-37-01.png");
         user = userService.save(user);
+        codeStore.remove(CODE_PREFIX + email);
         session.setAttribute("loginUser", user);
         return RespResult.success("注册成功", user);
     }
@@ -80,16 +89,16 @@ public class LoginController extends BaseController<User> {
      * @param email 邮箱
      */
     @PostMapping("/sendEmailCode")
-    public RespResult sendEmailCode(String email, Map<String, Object> map) {
+    public RespResult sendEmailCode(String email, HttpServletRequest request) {
         if (StrUtil.isEmpty(email)) {
             return RespResult.fail("邮箱不可为空");
         }
+        if (!sendRateLimiter.tryAcquire(email, request.getRemoteAddr())) {
+            return RespResult.fail("发送过于频繁，请稍后再试");
+        }
         // 发送验证码
         String verifyCode = emailClient.sendEmailCode(email);
-        map.put("email", email);
-        map.put("code", verifyCode);
-        map.put("time", new Date());
-        session.setAttribute("EMAIL_CODE" + email, map);
+        codeStore.put(CODE_PREFIX + email, verifyCode, TimeUnit.MINUTES.toMillis(valid));
         return RespResult.success("发送成功");
     }
 }
@@ -4,10 +4,13 @@ import cn.hutool.core.util.ObjectUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import lombok.SneakyThrows;
 import org.springframework.stereotype.Controller;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
+import top.medicine.component.Typeahead;
 import top.medicine.constant.MedicalConstants;
+import top.medicine.dto.RespResult;
 import top.medicine.entity.*;
 import top.medicine.utils.Assert;
 
@@ -22,9 +25,12 @@ import java.util.*;
 @Controller
 public class SystemController extends BaseController<User> {
 
+    @Autowired
+    private Typeahead typeahead;
 
     @GetMapping("/index.html")
-    public String index() {
+    public String index(Map<String, Object> map) {
+        map.put("trending", illnessService.trending(null));
         return "index";
     }
 
@@ -32,16 +38,28 @@ public class SystemController extends BaseController<User> {
     @ResponseBody
     @GetMapping("/login")
     public void login(HttpServletResponse response) {
-        if (!Assert.isEmpty(loginUser)) {
+        if (!Assert.isEmpty(loginUser())) {
             response.sendRedirect("/");
             return;
         }
         response.sendRedirect("login/index.html?#");
     }
 
+    /**
+     * 搜索框输入联想
+     * @param prefix 已输入的前缀
+     * @param limit 返回条数，默认且最多 {@link Typeahead#TOP_K}
+     */
+    @ResponseBody
+    @GetMapping("suggest")
+    public RespResult suggest(String prefix, Integer limit) {
+        int size = limit == null || limit < 1 ? Typeahead.TOP_K : Math.min(limit, Typeahead.TOP_K);
+        return RespResult.success("OK", typeahead.suggest(prefix, size));
+    }
+
     @GetMapping("/videoSupport")
     public String videoSupport(Map<String, Object> map, Integer id) {
-        /*if (Assert.isEmpty(loginUser)) {
+        /*if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }*/
         List<Video> v = videoService.all();
@@ -66,7 +84,7 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("/all-feedback")
     public String feedback(Map<String, Object> map) {
-        if (Assert.isEmpty(loginUser)) {
+        if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }
         List<Feedback> feedbackList = feedbackService.all();
@@ -78,7 +96,7 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("/profile")
     public String profile(Map<String, Object> map) {
-        if (Assert.isEmpty(loginUser)) {
+        if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }
         return "profile";
@@ -86,11 +104,9 @@ public class SystemController extends BaseController<User> {
 
 
     @GetMapping("findIllness")
-    public String findIllness(Map<String, Object> map, Integer kind, String illnessName, Integer page) {
-        // 处理page
-        page = ObjectUtils.isEmpty(page) ? 1 : page;
-
-        Map<String, Object> illness = illnessService.findIllness(kind, illnessName, page);
+    public String findIllness(Map<String, Object> map, Integer kind, String illnessName, Integer page, String cursor) {
+        User loginUser = loginUser();
+        Map<String, Object> illness = illnessService.findIllness(kind, illnessName, page, cursor);
         if (Assert.notEmpty(kind)) {
             map.put("title", illnessKindService.get(kind).getName() + (illnessName == null ? "" : ('"' + illnessName + '"' + "的搜索结果")));
         } else {
@@ -104,7 +120,8 @@ public class SystemController extends BaseController<User> {
             historyService.insetOne(loginUser.getId(), MedicalConstants.TYPE_ILLNESS, illnessName);
         }
         map.putAll(illness);
-        map.put("page", page);
+        // 处理page
+        map.put("page", ObjectUtils.isEmpty(page) ? 1 : page);
         map.put("kind", kind);
         map.put("illnessName", illnessName);
         map.put("kindList", illnessKindService.findList());
@@ -115,8 +132,12 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("findIllnessOne")
     public String findIllnessOne(Map<String, Object> map, Integer id) {
-        Map<String, Object> illnessOne = illnessService.findIllnessOne(id);
-        Illness illness = illnessService.get(id);
+        Map<String, Object> illnessOne = illnessService.findIllnessOne(id, visitorId());
+        Illness illness = (Illness) illnessOne.get("illness");
+        if (illness == null) {
+            return "error/404";
+        }
+        User loginUser = loginUser();
         if (loginUser != null) {
             historyService.insetOne(loginUser.getId(), MedicalConstants.TYPE_ILLNESS, illness.getIllnessName());
         }
@@ -135,13 +156,15 @@ public class SystemController extends BaseController<User> {
 
 
     @GetMapping("findMedicines")
-    public String findMedicines(Map<String, Object> map, String nameValue, Integer page) {
-        // 处理page
-        page = ObjectUtils.isEmpty(page) ? 1 : page;
+    public String findMedicines(Map<String, Object> map, String nameValue, Integer page, String cursor) {
+        User loginUser = loginUser();
         if (loginUser != null && Assert.notEmpty(nameValue)) {
             historyService.insetOne(loginUser.getId(), MedicalConstants.TYPE_MEDICINE, nameValue);
         }
-        map.putAll(medicineService.getMedicineList(nameValue, page));
+        map.putAll(medicineService.getMedicineList(nameValue, page, cursor));
+        // 处理page
+        map.put("page", ObjectUtils.isEmpty(page) ? 1 : page);
+        map.put("nameValue", nameValue);
         map.put("history", loginUser == null ? null : historyService.findList(loginUser.getId()));
         map.put("title", nameValue);
         return "illness";
@@ -149,7 +172,7 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("add-illness")
     public String addIllness(Integer id, Map<String, Object> map) {
-        if (Assert.isEmpty(loginUser)) {
+        if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }
         Illness illness = new Illness();
@@ -165,18 +188,17 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("add-medical")
     public String addMedical(Integer id, Map<String, Object> map) {
-        if (Assert.isEmpty(loginUser)) {
+        if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }
         List<Illness> illnesses = illnessService.all();
         Medicine medicine = new Medicine();
         if (Assert.notEmpty(id)) {
             medicine = medicineService.get(id);
+            // 一次查出该药品的全部关联，在内存中按疾病id匹配
+            Map<Integer, IllnessMedicine> relations = illnessMedicineService.findByMedicine(id);
             for (Illness illness : illnesses) {
-                List<IllnessMedicine> query = illnessMedicineService.query(IllnessMedicine.builder().medicineId(id).illnessId(illness.getId()).build());
-                if (Assert.notEmpty(query)) {
-                    illness.setIllnessMedicine(query.get(0));
-                }
+                illness.setIllnessMedicine(relations.get(illness.getId()));
             }
         }
         map.put("illnesses", illnesses);
@@ -186,7 +208,7 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("add-video")
     public String addVideo(Integer id, Map<String, Object> map) {
-        if (Assert.isEmpty(loginUser)) {
+        if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }
 //        List<Video> videos = videoService.all();
@@ -200,13 +222,14 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("all-illness")
     public String allIllness(Map<String, Object> map) {
-        if (Assert.isEmpty(loginUser)) {
+        if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }
         List<Illness> illnesses = illnessService.all();
         for (Illness illness : illnesses) {
             illness.setKind(illnessKindService.get(illness.getKindId()));
         }
+        illnessService.fillPageviews(illnesses);
         map.put("illnesses", illnesses);
         return "all-illness";
     }
@@ -214,7 +237,7 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("all-medical")
     public String allMedical(Map<String, Object> map) {
-        if (Assert.isEmpty(loginUser)) {
+        if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }
         List<Medicine> medicines = medicineService.all();
@@ -225,7 +248,7 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("all-video")
     public String allVideo(Map<String, Object> map) {
-        if (Assert.isEmpty(loginUser)) {
+        if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }
         List<Video> medicines = videoService.all();
@@ -235,7 +258,7 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("all-user")
     public String allUser(Map<String, Object> map) {
-        if (Assert.isEmpty(loginUser)) {
+        if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }
         List<User> users = userService.all();
@@ -245,7 +268,7 @@ public class SystemController extends BaseController<User> {
 
     @GetMapping("add-user")
     public String addUser(Integer id, Map<String, Object> map) {
-        if (Assert.isEmpty(loginUser)) {
+        if (Assert.isEmpty(loginUser())) {
             return "redirect:/index.html";
         }
 
@@ -39,6 +39,7 @@ public class UserController extends BaseController<User> {
      */
     @PostMapping("/savePassword")
     public RespResult savePassword(String oldPass, String newPass) {
+        User loginUser = loginUser();
         if (!loginUser.getUserPwd().equals(oldPass)) {
             return RespResult.fail("旧密码错误");
         }
@@ -55,6 +56,7 @@ public class UserController extends BaseController<User> {
     @PostMapping("/profile")
     public RespResult getUser(@RequestParam(value = "id", required = false) Integer id) {
         if (id == null) {
+            User loginUser = loginUser();
             return loginUser == null ? RespResult.fail("未登录") : RespResult.success("OK", loginUser);
         }
 
@@ -0,0 +1,34 @@
+package top.medicine.dao;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.springframework.stereotype.Repository;
+import top.medicine.entity.CacheVersion;
+
+import java.util.Date;
+import java.util.List;
+
+
+@Repository
+public interface CacheVersionDao extends BaseMapper<CacheVersion> {
+
+    /**
+     * 序号大于 afterId 的变更，按序号排列
+     */
+    @Select("SELECT * FROM cache_version WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<CacheVersion> selectAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 当前最大的变更序号，没有变更时为0
+     */
+    @Select("SELECT IFNULL(MAX(id), 0) FROM cache_version")
+    long selectMaxId();
+
+    /**
+     * 删除早于 before 的变更，每次最多 limit 条
+     */
+    @Delete("DELETE FROM cache_version WHERE create_time < #{before} LIMIT #{limit}")
+    int deleteBefore(@Param("before") Date before, @Param("limit") int limit);
+}
@@ -0,0 +1,56 @@
+package top.medicine.dao;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.springframework.stereotype.Repository;
+import top.medicine.entity.EmailOutbox;
+
+import java.util.Date;
+import java.util.List;
+
+
+@Repository
+public interface EmailOutboxDao extends BaseMapper<EmailOutbox> {
+
+    /**
+     * 到期待发送的邮件，按到期时间排列
+     */
+    @Select("SELECT * FROM email_outbox WHERE status = 0 AND next_attempt_time <= #{now} " +
+            "ORDER BY next_attempt_time LIMIT #{limit}")
+    List<EmailOutbox> selectDue(@Param("now") Date now, @Param("limit") int limit);
+
+    /**
+     * 认领一封待发送的邮件，多个线程或节点同时认领时只有一个成功
+     * @return 认领成功返回1
+     */
+    @Update("UPDATE email_outbox SET status = 1, update_time = #{now} WHERE id = #{id} AND status = 0")
+    int claim(@Param("id") Long id, @Param("now") Date now);
+
+    /**
+     * 发送完成后记录结果
+     */
+    @Update("UPDATE email_outbox SET status = #{status}, attempts = #{attempts}, next_attempt_time = #{nextAttemptTime}, " +
+            "last_error = #{lastError}, update_time = NOW() WHERE id = #{id}")
+    int finish(EmailOutbox outbox);
+
+    /**
+     * 发送中途宕机留下的邮件重新置为待发送
+     */
+    @Update("UPDATE email_outbox SET status = 0 WHERE status = 1 AND update_time < #{before}")
+    int releaseStale(@Param("before") Date before);
+
+    /**
+     * 待发送的邮件数
+     */
+    @Select("SELECT COUNT(*) FROM email_outbox WHERE status = 0")
+    long countPending();
+
+    /**
+     * 删除更新时间早于 before 的已发送和发送失败的邮件，每次最多 limit 条
+     */
+    @Delete("DELETE FROM email_outbox WHERE status IN (2, 3) AND update_time < #{before} LIMIT #{limit}")
+    int deleteFinished(@Param("before") Date before, @Param("limit") int limit);
+}
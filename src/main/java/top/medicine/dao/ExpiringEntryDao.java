@@ -0,0 +1,56 @@
+package top.medicine.dao;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.springframework.stereotype.Repository;
+import top.medicine.entity.ExpiringEntry;
+
+import java.util.Date;
+
+
+@Repository
+public interface ExpiringEntryDao extends BaseMapper<ExpiringEntry> {
+
+    /**
+     * 写入或覆盖一个值，计数清零
+     */
+    @Insert("INSERT INTO expiring_entry (entry_key, entry_value, counter, expire_time) " +
+            "VALUES (#{key}, #{value}, 0, #{expireTime}) " +
+            "ON DUPLICATE KEY UPDATE entry_value = VALUES(entry_value), counter = 0, expire_time = VALUES(expire_time)")
+    int upsert(@Param("key") String key, @Param("value") String value, @Param("expireTime") Date expireTime);
+
+    /**
+     * 未过期的值
+     */
+    @Select("SELECT entry_value FROM expiring_entry WHERE entry_key = #{key} AND expire_time > #{now}")
+    String selectValue(@Param("key") String key, @Param("now") Date now);
+
+    /**
+     * 计数加一，已过期的计数从1重新开始并使用新的过期时间
+     */
+    @Insert("INSERT INTO expiring_entry (entry_key, counter, expire_time) VALUES (#{key}, 1, #{expireTime}) " +
+            "ON DUPLICATE KEY UPDATE counter = IF(expire_time > #{now}, counter + 1, 1), " +
+            "expire_time = IF(counter = 1, VALUES(expire_time), expire_time)")
+    int increment(@Param("key") String key, @Param("now") Date now, @Param("expireTime") Date expireTime);
+
+    /**
+     * 当前计数
+     */
+    @Select("SELECT counter FROM expiring_entry WHERE entry_key = #{key}")
+    long selectCounter(@Param("key") String key);
+
+    /**
+     * 未过期的计数，不存在或已过期时返回 null
+     */
+    @Select("SELECT counter FROM expiring_entry WHERE entry_key = #{key} AND expire_time > #{now}")
+    Long selectActiveCounter(@Param("key") String key, @Param("now") Date now);
+
+    /**
+     * 删除已过期的键，每次最多 limit 条
+     */
+    @Delete("DELETE FROM expiring_entry WHERE expire_time <= #{now} LIMIT #{limit}")
+    int deleteExpired(@Param("now") Date now, @Param("limit") int limit);
+}
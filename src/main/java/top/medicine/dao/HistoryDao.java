@@ -1,11 +1,56 @@
 package top.medicine.dao;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.springframework.stereotype.Repository;
 import top.medicine.entity.History;
 
+import java.util.Date;
+import java.util.List;
+
 
 @Repository
 public interface HistoryDao extends BaseMapper<History> {
 
+    /**
+     * 多行 INSERT 批量写入搜索记录，同一用户重复的关键词只更新时间与类型，依赖 (user_id, keyword) 唯一索引
+     */
+    @Insert("<script>" +
+            "INSERT INTO history (user_id, keyword, operate_type, create_time, update_time) VALUES " +
+            "<foreach collection='histories' item='h' separator=','>" +
+            "(#{h.userId}, #{h.keyword}, #{h.operateType}, #{h.createTime}, #{h.updateTime})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE update_time = VALUES(update_time), operate_type = VALUES(operate_type)" +
+            "</script>")
+    int upsertBatch(@Param("histories") List<History> histories);
+
+    /**
+     * 用户最近的搜索记录，关键词已唯一，按更新时间从新到旧排列
+     * @param limit 最多返回的条数
+     */
+    @Select("SELECT * FROM history WHERE user_id = #{userId} ORDER BY update_time DESC, id DESC LIMIT #{limit}")
+    List<History> selectRecent(@Param("userId") Integer userId, @Param("limit") int limit);
+
+    /**
+     * 搜索记录超过 keep 条的用户
+     */
+    @Select("SELECT user_id FROM history WHERE user_id IS NOT NULL GROUP BY user_id HAVING COUNT(*) > #{keep}")
+    List<Integer> selectUsersOver(@Param("keep") int keep);
+
+    /**
+     * 用户按更新时间从新到旧的第 offset+1 条记录，作为保留的边界
+     */
+    @Select("SELECT * FROM history WHERE user_id = #{userId} ORDER BY update_time DESC, id DESC LIMIT #{offset}, 1")
+    History selectNth(@Param("userId") Integer userId, @Param("offset") int offset);
+
+    /**
+     * 删除用户比边界记录更旧的搜索记录，每次最多 limit 条
+     */
+    @Delete("DELETE FROM history WHERE user_id = #{userId} " +
+            "AND (update_time < #{updateTime} OR (update_time = #{updateTime} AND id < #{id})) LIMIT #{limit}")
+    int deleteOlder(@Param("userId") Integer userId, @Param("updateTime") Date updateTime,
+                    @Param("id") Integer id, @Param("limit") int limit);
 }
@@ -1,11 +1,35 @@
 package top.medicine.dao;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
 import top.medicine.entity.Pageview;
 
+import java.util.List;
+
 
 @Repository
 public interface PageviewDao extends BaseMapper<Pageview> {
 
+    /**
+     * 批量累加浏览量，疾病没有浏览记录时插入一条，依赖 illness_id 上的唯一索引
+     * @param deltas 每个疾病本次新增的浏览次数，以及合并后的访客估计器(为空时不修改)
+     */
+    @Insert("<script>" +
+            "INSERT INTO pageview (illness_id, pageviews, visitor_sketch) VALUES " +
+            "<foreach collection='deltas' item='p' separator=','>(#{p.illnessId}, #{p.pageviews}, #{p.visitorSketch})</foreach> " +
+            "ON DUPLICATE KEY UPDATE pageviews = IFNULL(pageviews, 0) + VALUES(pageviews), " +
+            "visitor_sketch = IFNULL(VALUES(visitor_sketch), visitor_sketch)" +
+            "</script>")
+    int upsertIncrements(@Param("deltas") List<Pageview> deltas);
+
+    /**
+     * 为没有浏览记录的疾病插入一条空记录，合并访客估计器前先保证记录存在，之后只需锁已有的行
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO pageview (illness_id, pageviews) VALUES " +
+            "<foreach collection='ids' item='id' separator=','>(#{id}, 0)</foreach>" +
+            "</script>")
+    int insertMissing(@Param("ids") List<Integer> ids);
 }
@@ -0,0 +1,27 @@
+package top.medicine.dao;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.springframework.stereotype.Repository;
+import top.medicine.entity.UploadObject;
+
+
+@Repository
+public interface UploadObjectDao extends BaseMapper<UploadObject> {
+
+    /**
+     * 指定存储中内容相同的对象
+     */
+    @Select("SELECT * FROM upload_object WHERE sha256 = #{sha256} AND backend = #{backend}")
+    UploadObject selectByHash(@Param("sha256") String sha256, @Param("backend") String backend);
+
+    /**
+     * 记录新上传的内容，相同内容被并发上传到同一存储时只保留先写入的一条
+     * @return 写入返回1，已存在返回0
+     */
+    @Insert("INSERT IGNORE INTO upload_object (sha256, backend, object_key, size, create_time) " +
+            "VALUES (#{sha256}, #{backend}, #{objectKey}, #{size}, #{createTime})")
+    int insertIgnore(UploadObject uploadObject);
+}
@@ -0,0 +1,58 @@
+package top.medicine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import top.medicine.utils.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+
+/**
+ * @description 游标分页的位置，按 (create_time, id) 定位，前端只拿到编码后的不透明字符串
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCursor {
+
+    // 边界记录的创建时间(毫秒)，为 null 表示创建时间为空
+    private Long createTime;
+
+    // 边界记录的id
+    private int id;
+
+    // true 表示向前翻页(上一页)，false 表示向后翻页(下一页)
+    private boolean backward;
+
+    public static PageCursor of(Date createTime, Integer id, boolean backward) {
+        return new PageCursor(createTime == null ? null : createTime.getTime(), id == null ? 0 : id, backward);
+    }
+
+    public String encode() {
+        String raw = (backward ? "p" : "n") + "," + (createTime == null ? "" : createTime) + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，格式不正确时返回 null
+     */
+    public static PageCursor decode(String token) {
+        if (Assert.isEmpty(token)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(",");
+            if (parts.length != 3 || !("p".equals(parts[0]) || "n".equals(parts[0]))) {
+                return null;
+            }
+            Long createTime = parts[1].isEmpty() ? null : Long.valueOf(parts[1]);
+            return new PageCursor(createTime, Integer.parseInt(parts[2]), "p".equals(parts[0]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package top.medicine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * @description 分页查询结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResult<T> {
+
+    // 当前页数据
+    private List<T> records;
+
+    // 总记录数，游标分页时为 -1
+    private long total;
+
+    // 当前页码，从1开始
+    private int page;
+
+    // 每页条数
+    private int pageSize;
+
+    // 总页数，至少为1，游标分页时为 -1
+    private int pages;
+
+    // 下一页游标，没有下一页时为空
+    private String nextCursor;
+
+    // 上一页游标，没有上一页时为空
+    private String prevCursor;
+
+    public static <T> PageResult<T> of(List<T> records, long total, int page, int pageSize) {
+        return PageResult.<T>builder()
+                .records(records == null ? Collections.emptyList() : records)
+                .total(total)
+                .page(page)
+                .pageSize(pageSize)
+                .pages(total == 0 ? 1 : (int) ((total + pageSize - 1) / pageSize))
+                .build();
+    }
+
+    public static <T> PageResult<T> seek(List<T> records, String nextCursor, String prevCursor, int pageSize) {
+        return PageResult.<T>builder()
+                .records(records == null ? Collections.emptyList() : records)
+                .total(-1)
+                .pageSize(pageSize)
+                .pages(-1)
+                .nextCursor(nextCursor)
+                .prevCursor(prevCursor)
+                .build();
+    }
+
+    public boolean isSeek() {
+        return total < 0;
+    }
+
+    /**
+     * 当前页第一条记录的偏移量
+     */
+    public static long offset(int page, int pageSize) {
+        return (long) (Math.max(page, 1) - 1) * pageSize;
+    }
+}
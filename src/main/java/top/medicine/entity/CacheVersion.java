@@ -0,0 +1,38 @@
+package top.medicine.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * @description 缓存失效日志，每次实体保存、删除追加一条
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("cache_version")
+public class CacheVersion {
+
+    // 变更序号
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    // 缓存名称(实体名)
+    private String cacheName;
+
+    // 变更的实体id，为空表示整个缓存
+    private String entityKey;
+
+    // 发出变更的节点
+    private String nodeId;
+
+    // 创建时间
+    private Date createTime;
+}
@@ -0,0 +1,64 @@
+package top.medicine.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * @description 待发送的邮件
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("email_outbox")
+public class EmailOutbox {
+
+    public static final int PENDING = 0;
+
+    public static final int SENDING = 1;
+
+    public static final int SENT = 2;
+
+    public static final int FAILED = 3;
+
+    // 邮件id
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    // 收件人
+    private String toAddress;
+
+    // 标题
+    private String subject;
+
+    // 正文(HTML)
+    private String content;
+
+    // 状态：0待发送 1发送中 2已发送 3发送失败
+    private Integer status;
+
+    // 已尝试次数
+    private Integer attempts;
+
+    // 下次尝试时间
+    private Date nextAttemptTime;
+
+    // 过期时间，过期后不再发送，为空表示不过期
+    private Date expireTime;
+
+    // 最近一次失败原因
+    private String lastError;
+
+    // 创建时间
+    private Date createTime;
+
+    // 更新时间
+    private Date updateTime;
+}
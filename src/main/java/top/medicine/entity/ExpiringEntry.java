@@ -0,0 +1,35 @@
+package top.medicine.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * @description 带过期时间的键值，保存邮箱验证码与发送频率计数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("expiring_entry")
+public class ExpiringEntry {
+
+    // 键
+    @TableId(type = IdType.INPUT)
+    private String entryKey;
+
+    // 值
+    private String entryValue;
+
+    // 计数
+    private Integer counter;
+
+    // 过期时间
+    private Date expireTime;
+}
@@ -54,4 +54,12 @@ public class Illness {
     // 疾病对应的药品
     @TableField(exist = false)
     private IllnessMedicine illnessMedicine;
+
+    // 浏览量
+    @TableField(exist = false)
+    private Integer pageview;
+
+    // 估计的访客数
+    @TableField(exist = false)
+    private Long visitors;
 }
@@ -26,4 +26,7 @@ public class Pageview implements Serializable {
     private Integer pageviews;
 
     private Integer illnessId;
+
+    // 访客 HyperLogLog 估计器的序列化结果
+    private byte[] visitorSketch;
 }
@@ -0,0 +1,35 @@
+package top.medicine.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * @description 已上传的文件内容，同一存储中按 SHA-256 去重
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("upload_object")
+public class UploadObject {
+
+    // 内容的SHA-256(十六进制)
+    private String sha256;
+
+    // 保存该对象的存储，见 ObjectStorage.backend()
+    private String backend;
+
+    // 存储中的对象名
+    private String objectKey;
+
+    // 字节数
+    private Long size;
+
+    // 首次上传时间
+    private Date createTime;
+}
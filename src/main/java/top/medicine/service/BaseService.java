@@ -1,8 +1,34 @@
 package top.medicine.service;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.medicine.component.CacheInvalidator;
 import top.medicine.dao.*;
+import top.medicine.dto.PageCursor;
+import top.medicine.dto.PageResult;
+import top.medicine.utils.EntityMeta;
+
+import javax.annotation.PostConstruct;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 public abstract class BaseService<T> implements IService<T> {
@@ -30,4 +56,321 @@ public abstract class BaseService<T> implements IService<T> {
 
     @Autowired
     protected VideoDao videoDao;
+
+    // 分页总数的缓存时间(毫秒)，为0时不缓存
+    @Value("${page.count-cache-ttl:3000}")
+    protected long countCacheTtl;
+
+    // 按页码分页时超过该偏移量的页先定位第一条记录再按游标取数据
+    @Value("${page.seek-offset:900}")
+    protected long seekOffset = 900;
+
+    // 查询条件 -> 总记录数
+    private final LRUCache<String, Long> countCache = CacheUtil.newLRUCache(256);
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private CacheInvalidator cacheInvalidator;
+
+    // 按id缓存的实体，首次调用 getCached 时创建
+    private volatile EntityCache<T> entityCache;
+
+    // 配置为不缓存
+    private volatile boolean entityCacheDisabled;
+
+    /**
+     * 以实体的非空属性作为等值条件构造查询，列名与 getter 来自按类缓存的 {@link EntityMeta}
+     * @param o 查询条件，为空时查询全部
+     */
+    protected QueryWrapper<T> buildQuery(T o) {
+        return o == null ? new QueryWrapper<>() : EntityMeta.of(entityType()).toWrapper(o);
+    }
+
+    /**
+     * 按id读取实体，先查缓存，未命中时调用 loader 并放入缓存
+     * 容量与过期时间(毫秒)按实体配置 cache.entity.<实体名>.size / ttl，默认取 cache.entity.size / ttl，size 为0时不缓存
+     * @param loader 从数据库读取实体
+     * @return 缓存对象的副本
+     */
+    protected T getCached(Serializable id, Function<Serializable, T> loader) {
+        EntityCache<T> cache = entityCache();
+        if (id == null || cache == null) {
+            return loader.apply(id);
+        }
+        return cache.get(id, loader);
+    }
+
+    /**
+     * 实体被修改或删除后使缓存失效
+     */
+    protected void evictCached(Serializable id) {
+        EntityCache<T> cache = entityCache;
+        if (id != null && cache != null) {
+            cache.evict(id);
+        }
+    }
+
+    /**
+     * 清空本服务的实体缓存
+     */
+    public void clearCached() {
+        EntityCache<T> cache = entityCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 订阅其他节点对本实体的变更
+     */
+    @PostConstruct
+    public void subscribeChanges() {
+        if (cacheInvalidator != null) {
+            cacheInvalidator.subscribe(entityName(), this::onRemoteChange);
+        }
+    }
+
+    /**
+     * 实体在本节点被保存或删除后调用：使本地缓存与分页总数失效，并在当前事务中记录变更通知其他节点
+     * 事务提交后再失效一次，避免提交前被其他线程读回旧值
+     */
+    protected void publishChange(Serializable id) {
+        evictCached(id);
+        countCache.clear();
+        if (cacheInvalidator != null) {
+            cacheInvalidator.publish(entityName(), id);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictCached(id);
+                    countCache.clear();
+                }
+            });
+        }
+    }
+
+    /**
+     * 当前事务提交后执行，用于更新索引、快照等本地副本，事务回滚时不执行，提交前其他线程也读不到未提交的数据；没有事务时立即执行
+     */
+    protected void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * 收到其他节点的变更，默认使实体缓存与分页总数失效，有其他本地副本的服务可以覆盖
+     * @param key 变更的实体id，为 null 表示全部
+     */
+    protected void onRemoteChange(String key) {
+        countCache.clear();
+        if (key == null) {
+            clearCached();
+        } else {
+            evictCached(key);
+        }
+    }
+
+    /**
+     * 实体名，用作缓存名称与配置前缀
+     */
+    protected String entityName() {
+        return StrUtil.lowerFirst(entityType().getSimpleName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<T> entityType() {
+        return (Class<T>) GenericTypeResolver.resolveTypeArgument(getClass(), BaseService.class);
+    }
+
+    private EntityCache<T> entityCache() {
+        EntityCache<T> cache = entityCache;
+        if (cache != null || entityCacheDisabled || environment == null) {
+            return cache;
+        }
+        synchronized (this) {
+            if (entityCache == null && !entityCacheDisabled) {
+                Class<T> type = entityType();
+                String name = entityName();
+                int size = environment.getProperty("cache.entity." + name + ".size", Integer.class,
+                        environment.getProperty("cache.entity.size", Integer.class, 1000));
+                long ttl = environment.getProperty("cache.entity." + name + ".ttl", Long.class,
+                        environment.getProperty("cache.entity.ttl", Long.class, 600000L));
+                if (size <= 0) {
+                    entityCacheDisabled = true;
+                    return null;
+                }
+                EntityCache<T> newCache = new EntityCache<>(type, size, ttl);
+                if (meterRegistry != null) {
+                    newCache.bindTo(meterRegistry, name);
+                }
+                entityCache = newCache;
+            }
+            return entityCache;
+        }
+    }
+
+    /**
+     * 按 (create_time, id) 倒序分页查询实体
+     * 传入游标(可以为空串，表示第一页)时按游标分页，不做 COUNT；否则按页码分页，一次 COUNT(*) 加一次数据查询，
+     * 页码较深时先只查 create_time、id 定位该页第一条记录，再从该记录按游标取一页，避免大 OFFSET 回表读取整行
+     * @param mapper 实体对应的DAO
+     * @param conditions 每次调用返回一个新的查询条件，不能包含 order by 与 limit
+     * @param page 页码，从1开始
+     * @param cursor 上一次返回的 nextCursor/prevCursor，为 null 时按页码分页
+     * @param createTimeOf 取记录的创建时间
+     * @param idOf 取记录的id
+     */
+    protected PageResult<T> browsePage(BaseMapper<T> mapper, Supplier<QueryWrapper<T>> conditions, Integer page, String cursor,
+                                       Function<T, Date> createTimeOf, Function<T, Integer> idOf) {
+        return browsePage(mapper, conditions, page, cursor, mapper::selectList, createTimeOf, idOf);
+    }
+
+    /**
+     * 分页查询，结果以字段名为key的Map返回
+     * @see #browsePage(BaseMapper, Supplier, Integer, String, Function, Function)
+     */
+    protected PageResult<Map<String, Object>> browseMapsPage(BaseMapper<T> mapper, Supplier<QueryWrapper<T>> conditions,
+                                                             Integer page, String cursor) {
+        return browsePage(mapper, conditions, page, cursor, mapper::selectMaps,
+                row -> MapUtil.getDate(row, "create_time"), row -> MapUtil.getInt(row, "id"));
+    }
+
+    private <R> PageResult<R> browsePage(BaseMapper<T> mapper, Supplier<QueryWrapper<T>> conditions, Integer page, String cursor,
+                                         Function<QueryWrapper<T>, List<R>> select,
+                                         Function<R, Date> createTimeOf, Function<R, Integer> idOf) {
+        if (cursor != null) {
+            return seekPage(conditions.get(), PageCursor.decode(cursor), select, createTimeOf, idOf);
+        }
+        int current = page == null || page < 1 ? 1 : page;
+        long total = count(mapper, conditions.get());
+        long offset = PageResult.offset(current, PAGE_SIZE);
+        if (offset >= total) {
+            return PageResult.of(Collections.emptyList(), total, current, PAGE_SIZE);
+        }
+        if (offset < seekOffset) {
+            QueryWrapper<T> wrapper = conditions.get().orderByDesc("create_time", "id");
+            wrapper.last("limit " + offset + "," + PAGE_SIZE);
+            return PageResult.of(select.apply(wrapper), total, current, PAGE_SIZE);
+        }
+        // 只查 create_time、id 定位该页第一条记录
+        QueryWrapper<T> boundaryWrapper = conditions.get().select("create_time", "id").orderByDesc("create_time", "id");
+        boundaryWrapper.last("limit " + offset + ",1");
+        List<Map<String, Object>> boundary = mapper.selectMaps(boundaryWrapper);
+        if (boundary.isEmpty()) {
+            return PageResult.of(Collections.emptyList(), total, current, PAGE_SIZE);
+        }
+        QueryWrapper<T> wrapper = conditions.get();
+        seekAfter(wrapper, MapUtil.getDate(boundary.get(0), "create_time"), MapUtil.getInt(boundary.get(0), "id"), true);
+        wrapper.orderByDesc("create_time", "id");
+        wrapper.last("limit " + PAGE_SIZE);
+        return PageResult.of(select.apply(wrapper), total, current, PAGE_SIZE);
+    }
+
+    private <R> PageResult<R> seekPage(QueryWrapper<T> wrapper, PageCursor cursor, Function<QueryWrapper<T>, List<R>> select,
+                                       Function<R, Date> createTimeOf, Function<R, Integer> idOf) {
+        boolean backward = cursor != null && cursor.isBackward();
+        if (cursor != null) {
+            Date createTime = cursor.getCreateTime() == null ? null : new Date(cursor.getCreateTime());
+            if (backward) {
+                seekBefore(wrapper, createTime, cursor.getId());
+            } else {
+                seekAfter(wrapper, createTime, cursor.getId(), false);
+            }
+        }
+        // 向前翻页时反向排序取离游标最近的一页，再倒回来
+        if (backward) {
+            wrapper.orderByAsc("create_time", "id");
+        } else {
+            wrapper.orderByDesc("create_time", "id");
+        }
+        // 多取一条用来判断游标方向上是否还有数据
+        wrapper.last("limit " + (PAGE_SIZE + 1));
+        List<R> records = new ArrayList<>(select.apply(wrapper));
+        boolean more = records.size() > PAGE_SIZE;
+        if (more) {
+            records.remove(PAGE_SIZE);
+        }
+        if (backward) {
+            Collections.reverse(records);
+        }
+        String next = null;
+        String prev = null;
+        if (!records.isEmpty()) {
+            R first = records.get(0);
+            R last = records.get(records.size() - 1);
+            if (backward || more) {
+                next = PageCursor.of(createTimeOf.apply(last), idOf.apply(last), false).encode();
+            }
+            if (backward ? more : cursor != null) {
+                prev = PageCursor.of(createTimeOf.apply(first), idOf.apply(first), true).encode();
+            }
+        }
+        return PageResult.seek(records, next, prev, PAGE_SIZE);
+    }
+
+    /**
+     * 按 (create_time, id) 倒序排在边界记录之后的记录，MySQL 倒序时 create_time 为 NULL 的记录排在最后
+     * @param inclusive 是否包含边界记录本身
+     */
+    private static <T> void seekAfter(QueryWrapper<T> wrapper, Date createTime, Integer id, boolean inclusive) {
+        if (createTime == null) {
+            wrapper.isNull("create_time");
+            if (inclusive) {
+                wrapper.le("id", id);
+            } else {
+                wrapper.lt("id", id);
+            }
+            return;
+        }
+        wrapper.and(w -> w.lt("create_time", createTime)
+                .or(o -> {
+                    o.eq("create_time", createTime);
+                    if (inclusive) {
+                        o.le("id", id);
+                    } else {
+                        o.lt("id", id);
+                    }
+                })
+                .or().isNull("create_time"));
+    }
+
+    /**
+     * 按 (create_time, id) 倒序排在边界记录之前的记录
+     */
+    private static <T> void seekBefore(QueryWrapper<T> wrapper, Date createTime, Integer id) {
+        if (createTime == null) {
+            wrapper.and(w -> w.isNotNull("create_time").or().gt("id", id));
+            return;
+        }
+        wrapper.and(w -> w.gt("create_time", createTime).or(o -> o.eq("create_time", createTime).gt("id", id)));
+    }
+
+    private long count(BaseMapper<T> mapper, QueryWrapper<T> wrapper) {
+        if (countCacheTtl <= 0) {
+            return mapper.selectCount(wrapper);
+        }
+        String key = wrapper.getSqlSegment() + wrapper.getParamNameValuePairs().values();
+        // 读取时不刷新访问时间，过期时间从写入时算起
+        Long total = countCache.get(key, false);
+        if (total == null) {
+            total = Long.valueOf(mapper.selectCount(wrapper));
+            countCache.put(key, total, countCacheTtl);
+        }
+        return total;
+    }
 }
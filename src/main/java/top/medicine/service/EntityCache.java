@@ -0,0 +1,87 @@
+package top.medicine.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import top.medicine.utils.BeanUtil;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * @description 按id缓存的实体，容量有限(LRU)并且有过期时间
+ * 返回的是缓存对象的副本，调用方修改返回值不会影响缓存
+ */
+class EntityCache<T> {
+
+    private final Class<T> type;
+
+    private final LRUCache<String, T> cache;
+
+    // 每次失效加一，加载期间发生过失效的结果不放入缓存，避免把旧数据写回缓存
+    private final AtomicLong generation = new AtomicLong();
+
+    EntityCache(Class<T> type, int capacity, long ttl) {
+        this.type = type;
+        this.cache = CacheUtil.newLRUCache(capacity, ttl);
+    }
+
+    /**
+     * 注册命中、未命中次数与缓存大小指标，标签与 Spring 的缓存指标一致
+     */
+    void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("cache.gets", cache, LRUCache::getHitCount)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", cache, LRUCache::getMissCount)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        Gauge.builder("cache.size", cache, LRUCache::size).tag("cache", name).register(registry);
+    }
+
+    T get(Serializable id, Function<Serializable, T> loader) {
+        String key = id.toString();
+        // 读取时不刷新访问时间，过期时间从放入缓存时算起，热点实体也会定期重新加载
+        T entity = cache.get(key, false);
+        if (entity == null) {
+            long current = generation.get();
+            entity = loader.apply(id);
+            if (entity == null) {
+                return null;
+            }
+            synchronized (this) {
+                if (generation.get() == current) {
+                    cache.put(key, entity);
+                }
+            }
+        }
+        return copy(entity);
+    }
+
+    synchronized void evict(Serializable id) {
+        generation.incrementAndGet();
+        cache.remove(id.toString());
+    }
+
+    synchronized void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    private T copy(T entity) {
+        try {
+            return BeanUtil.copy(entity, type);
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
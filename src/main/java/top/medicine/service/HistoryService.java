@@ -1,19 +1,17 @@
 package top.medicine.service;
 
 import cn.hutool.core.map.MapUtil;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import top.medicine.component.HistoryWriter;
+import top.medicine.component.RecentHistory;
 import top.medicine.dao.HistoryDao;
 import top.medicine.entity.History;
 import top.medicine.entity.IllnessKind;
 import top.medicine.utils.Assert;
-import top.medicine.utils.BeanUtil;
-import top.medicine.utils.VariableNameUtils;
 
 import java.io.Serializable;
 import java.util.*;
-import java.util.stream.Collectors;
 
 
 @Service
@@ -22,19 +20,18 @@ public class HistoryService extends BaseService<History> {
     @Autowired
     protected HistoryDao historyDao;
 
+    @Autowired
+    protected HistoryWriter historyWriter;
+
+    @Autowired
+    protected RecentHistory recentHistory;
+
+    @Autowired
+    protected IllnessKindService illnessKindService;
+
     @Override
     public List<History> query(History o) {
-        QueryWrapper<History> wrapper = new QueryWrapper();
-        if (Assert.notEmpty(o)) {
-            Map<String, Object> bean2Map = BeanUtil.bean2Map(o);
-            for (String key : bean2Map.keySet()) {
-                if (Assert.isEmpty(bean2Map.get(key))) {
-                    continue;
-                }
-                wrapper.eq(VariableNameUtils.humpToLine(key), bean2Map.get(key));
-            }
-        }
-        return historyDao.selectList(wrapper);
+        return historyDao.selectList(buildQuery(o));
     }
 
     @Override
@@ -49,7 +46,11 @@ public class HistoryService extends BaseService<History> {
         } else {
             historyDao.updateById(o);
         }
-        return historyDao.selectById(o.getId());
+        History history = historyDao.selectById(o.getId());
+        if (history != null) {
+            recentHistory.evict(history.getUserId());
+        }
+        return history;
     }
 
     @Override
@@ -59,30 +60,42 @@ public class HistoryService extends BaseService<History> {
 
     @Override
     public int delete(Serializable id) {
-        return historyDao.deleteById(id);
+        History history = historyDao.selectById(id);
+        int rows = historyDao.deleteById(id);
+        if (history != null) {
+            recentHistory.evict(history.getUserId());
+        }
+        return rows;
     }
 
+    /**
+     * 记录一次搜索，由 HistoryWriter 异步批量写入
+     * @return 写入队列已满被丢弃时返回 false
+     */
     public boolean insetOne(Integer uid, Integer type, String nameValue) {
+        Date now = new Date();
         History history = new History();
-        history.setUserId(uid).setKeyword(nameValue).setOperateType(type);
-        return historyDao.insert(history) > 0;
+        history.setUserId(uid).setKeyword(nameValue).setOperateType(type).setCreateTime(now).setUpdateTime(now);
+        recentHistory.add(history);
+        return historyWriter.offer(history);
     }
 
+    /**
+     * 用户最近10条不重复的搜索记录，来自内存中的 RecentHistory，不扫描用户的全部搜索记录
+     */
     public List<Map<String, Object>> findList(Integer userId) {
-        List<History> list = historyDao.selectList(new QueryWrapper<History>().eq("user_id", userId)
-                .orderByDesc("create_time"));
-        List<History> histories = list.stream().collect(Collectors.collectingAndThen(
-                Collectors.toCollection(() -> new TreeSet<>(Comparator.comparing(History::getKeyword))), LinkedList::new));
-        histories.sort((h1, h2) -> -h1.getCreateTime().compareTo(h2.getCreateTime()));
-        List<History> historyList = histories.stream().limit(10).collect(Collectors.toList());
-        System.out.println(histories.size());
+        List<History> historyList = recentHistory.get(userId);
         List<Map<String, Object>> mapList = new LinkedList<>();
         historyList.forEach(his -> {
             Map<String, Object> map = cn.hutool.core.bean.BeanUtil.beanToMap(his);
             Integer operateType = MapUtil.getInt(map, "operateType");
             if (operateType == 1) {
                 List<String> keyword = Arrays.asList((MapUtil.getStr(map, "keyword")).split(","));
-                IllnessKind illnessKind = illnessKindDao.selectById(Integer.valueOf(keyword.get(0)));
+                IllnessKind illnessKind = illnessKindService.get(Integer.valueOf(keyword.get(0)));
+                if (illnessKind == null) {
+                    // 疾病种类已被删除
+                    return;
+                }
                 map.put("kind", illnessKind.getId());
                 map.put("nameValue", keyword.get(1));
                 map.put("searchValue", illnessKind.getName() + ("无".equals(keyword.get(1)) ? "" : ("|" + keyword.get(1))));
@@ -8,6 +8,9 @@ import java.util.List;
 
 public interface IService<T> {
 
+    // 列表页每页条数
+    int PAGE_SIZE = 9;
+
     
     T save(T t);
 
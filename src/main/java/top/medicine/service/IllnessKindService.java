@@ -3,64 +3,133 @@ package top.medicine.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import top.medicine.dao.IllnessKindDao;
 import top.medicine.entity.IllnessKind;
 import top.medicine.utils.Assert;
-import top.medicine.utils.BeanUtil;
-import top.medicine.utils.VariableNameUtils;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 
+/**
+ * @description 疾病种类，读取来自内存中的不可变快照，保存、删除的事务提交后整体替换快照
+ */
 @Service
 public class IllnessKindService extends BaseService<IllnessKind> {
 
     @Autowired
     protected IllnessKindDao illnessKindDao;
 
+    // 全部疾病种类的快照，首次读取时加载
+    private volatile Snapshot snapshot;
+
     @Override
     public List<IllnessKind> query(IllnessKind o) {
-        QueryWrapper<IllnessKind> wrapper = new QueryWrapper();
-        if (Assert.notEmpty(o)) {
-            Map<String, Object> bean2Map = BeanUtil.bean2Map(o);
-            for (String key : bean2Map.keySet()) {
-                if (Assert.isEmpty(bean2Map.get(key))) {
-                    continue;
-                }
-                wrapper.eq(VariableNameUtils.humpToLine(key), bean2Map.get(key));
-            }
-        }
-        return illnessKindDao.selectList(wrapper);
+        return illnessKindDao.selectList(buildQuery(o));
     }
 
     @Override
     public List<IllnessKind> all() {
-        return query(null);
+        return findList();
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public IllnessKind save(IllnessKind o) {
         if (Assert.isEmpty(o.getId())) {
             illnessKindDao.insert(o);
         } else {
             illnessKindDao.updateById(o);
         }
+        publishChange(o.getId());
+        afterCommit(this::reload);
         return illnessKindDao.selectById(o.getId());
     }
 
     @Override
     public IllnessKind get(Serializable id) {
-        return illnessKindDao.selectById(id);
+        if (id == null) {
+            return null;
+        }
+        return snapshot().kinds.get(Integer.valueOf(id.toString()));
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int delete(Serializable id) {
-        return illnessKindDao.deleteById(id);
+        int rows = illnessKindDao.deleteById(id);
+        publishChange(id);
+        afterCommit(this::reload);
+        return rows;
     }
 
+    /**
+     * 其他节点修改了疾病种类，重新加载快照
+     */
+    @Override
+    protected void onRemoteChange(String key) {
+        reload();
+    }
+
+    /**
+     * 疾病种类id -> 名称，只读
+     */
+    public Map<Integer, String> getIdToNameMap() {
+        return snapshot().names;
+    }
+
+    /**
+     * 全部疾病种类，只读，返回的对象是共享的，不要修改
+     */
     public List<IllnessKind> findList() {
-        return illnessKindDao.selectList(new QueryWrapper<IllnessKind>());
+        return snapshot().list;
+    }
+
+    /**
+     * 从数据库重新加载快照并整体替换，读取方不会看到加载到一半的数据
+     */
+    public synchronized void reload() {
+        snapshot = new Snapshot(illnessKindDao.selectList(new QueryWrapper<>()));
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 疾病种类的不可变快照
+     */
+    private static class Snapshot {
+
+        private final List<IllnessKind> list;
+
+        private final Map<Integer, IllnessKind> kinds;
+
+        private final Map<Integer, String> names;
+
+        Snapshot(List<IllnessKind> illnessKinds) {
+            Map<Integer, IllnessKind> kinds = new HashMap<>(illnessKinds.size() * 2);
+            Map<Integer, String> names = new HashMap<>(illnessKinds.size() * 2);
+            for (IllnessKind illnessKind : illnessKinds) {
+                kinds.put(illnessKind.getId(), illnessKind);
+                names.put(illnessKind.getId(), illnessKind.getName());
+            }
+            this.list = Collections.unmodifiableList(illnessKinds);
+            this.kinds = Collections.unmodifiableMap(kinds);
+            this.names = Collections.unmodifiableMap(names);
+        }
     }
 }
\ No newline at end of file
@@ -3,36 +3,39 @@ package top.medicine.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import top.medicine.component.IllnessMedicineGraph;
+import top.medicine.component.Typeahead;
 import top.medicine.dao.IllnessMedicineDao;
+import top.medicine.entity.Illness;
 import top.medicine.entity.IllnessMedicine;
+import top.medicine.entity.Medicine;
 import top.medicine.utils.Assert;
-import top.medicine.utils.BeanUtil;
-import top.medicine.utils.VariableNameUtils;
 
 import java.io.Serializable;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
+/**
+ * @description 疾病与药品的关联，按一端批量加载另一端，查询次数与关联数量无关
+ */
 @Service
 public class IllnessMedicineService extends BaseService<IllnessMedicine> {
 
     @Autowired
     protected IllnessMedicineDao illnessMedicineDao;
 
+    @Autowired
+    protected IllnessMedicineGraph illnessMedicineGraph;
+
+    @Autowired
+    protected Typeahead typeahead;
+
     @Override
     public List<IllnessMedicine> query(IllnessMedicine o) {
-        QueryWrapper<IllnessMedicine> wrapper = new QueryWrapper();
-        if (Assert.notEmpty(o)) {
-            Map<String, Object> bean2Map = BeanUtil.bean2Map(o);
-            for (String key : bean2Map.keySet()) {
-                if (Assert.isEmpty(bean2Map.get(key))) {
-                    continue;
-                }
-                wrapper.eq(VariableNameUtils.humpToLine(key), bean2Map.get(key));
-            }
-        }
-        return illnessMedicineDao.selectList(wrapper);
+        return illnessMedicineDao.selectList(buildQuery(o));
     }
 
     @Override
@@ -41,22 +44,124 @@ public class IllnessMedicineService extends BaseService<IllnessMedicine> {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public IllnessMedicine save(IllnessMedicine o) {
         if (Assert.isEmpty(o.getId())) {
             illnessMedicineDao.insert(o);
         } else {
             illnessMedicineDao.updateById(o);
         }
-        return illnessMedicineDao.selectById(o.getId());
+        publishChange(o.getId());
+        IllnessMedicine illnessMedicine = illnessMedicineDao.selectById(o.getId());
+        // 药品的联想排名取决于关联疾病的浏览量，关联变化后重建联想
+        afterCommit(() -> {
+            illnessMedicineGraph.put(illnessMedicine);
+            typeahead.markDirty();
+        });
+        return illnessMedicine;
     }
 
     @Override
     public IllnessMedicine get(Serializable id) {
-        return illnessMedicineDao.selectById(id);
+        return getCached(id, illnessMedicineDao::selectById);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int delete(Serializable id) {
-        return illnessMedicineDao.deleteById(id);
+        int rows = illnessMedicineDao.deleteById(id);
+        publishChange(id);
+        afterCommit(() -> {
+            illnessMedicineGraph.remove(id);
+            typeahead.markDirty();
+        });
+        return rows;
+    }
+
+    /**
+     * 其他节点修改了关联，除实体缓存外同步更新关联图与联想
+     */
+    @Override
+    protected void onRemoteChange(String key) {
+        super.onRemoteChange(key);
+        typeahead.markDirty();
+        if (key == null) {
+            illnessMedicineGraph.rebuild();
+            return;
+        }
+        IllnessMedicine illnessMedicine = illnessMedicineDao.selectById(key);
+        if (illnessMedicine == null) {
+            illnessMedicineGraph.remove(key);
+        } else {
+            illnessMedicineGraph.put(illnessMedicine);
+        }
+    }
+
+    /**
+     * 某个药品关联的全部疾病，一次查询
+     * @return 疾病id -> 关联记录
+     */
+    public Map<Integer, IllnessMedicine> findByMedicine(Integer medicineId) {
+        if (medicineId == null) {
+            return Collections.emptyMap();
+        }
+        List<IllnessMedicine> relations = illnessMedicineDao.selectList(
+                new QueryWrapper<IllnessMedicine>().eq("medicine_id", medicineId));
+        Map<Integer, IllnessMedicine> map = new HashMap<>(relations.size() * 2);
+        // 同一对疾病、药品重复关联时保留第一条，与原先逐个查询取 get(0) 一致
+        relations.forEach(relation -> map.putIfAbsent(relation.getIllnessId(), relation));
+        return map;
+    }
+
+    /**
+     * 某个疾病关联的药品，关联与药品各一次查询，按关联的先后顺序返回
+     */
+    public List<Medicine> findMedicines(Integer illnessId) {
+        if (illnessId == null) {
+            return new ArrayList<>();
+        }
+        List<Integer> medicineIds = illnessMedicineDao.selectList(
+                        new QueryWrapper<IllnessMedicine>().eq("illness_id", illnessId))
+                .stream()
+                .map(IllnessMedicine::getMedicineId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return selectInOrder(medicineIds, ids -> medicineDao.selectBatchIds(new HashSet<>(ids)), Medicine::getId);
+    }
+
+    /**
+     * 与给定疾病关联的药品，集合运算在内存关联图上完成，只回表查询结果药品
+     * @param all 为 true 时要求与全部疾病都有关联，否则与任一疾病有关联即可
+     */
+    public List<Medicine> findMedicinesOf(Collection<Integer> illnessIds, boolean all) {
+        if (Assert.isEmpty(illnessIds)) {
+            return new ArrayList<>();
+        }
+        BitSet medicineIds = all
+                ? illnessMedicineGraph.medicinesOfAll(illnessIds)
+                : illnessMedicineGraph.medicinesOfAny(illnessIds);
+        return selectInOrder(medicineIds.stream().boxed().collect(Collectors.toList()),
+                medicineDao::selectBatchIds, Medicine::getId);
+    }
+
+    /**
+     * 与给定疾病共用药品的其他疾病，共用药品越多越靠前
+     */
+    public List<Illness> findRelatedIllnesses(Integer illnessId) {
+        if (illnessId == null) {
+            return new ArrayList<>();
+        }
+        return selectInOrder(illnessMedicineGraph.illnessesSharingMedicines(illnessId),
+                illnessDao::selectBatchIds, Illness::getId);
+    }
+
+    // 按id批量查询，结果保持传入id的顺序
+    private static <E> List<E> selectInOrder(List<Integer> ids, Function<Collection<Integer>, List<E>> select,
+                                             Function<E, Integer> idOf) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, E> rows = select.apply(ids).stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream().map(rows::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
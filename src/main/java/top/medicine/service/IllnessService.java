@@ -2,21 +2,22 @@ package top.medicine.service;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.map.MapUtil;
-import cn.hutool.core.util.ObjectUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import top.medicine.component.IllnessIndex;
+import top.medicine.component.Typeahead;
+import top.medicine.component.IllnessTrending;
+import top.medicine.component.PageviewCounter;
 import top.medicine.dao.IllnessDao;
+import top.medicine.dto.PageResult;
 import top.medicine.entity.*;
 import top.medicine.utils.Assert;
-import top.medicine.utils.BeanUtil;
-import top.medicine.utils.VariableNameUtils;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -25,19 +26,27 @@ public class IllnessService extends BaseService<Illness> {
     @Autowired
     protected IllnessDao illnessDao;
 
+    @Autowired
+    protected IllnessIndex illnessIndex;
+
+    @Autowired
+    protected Typeahead typeahead;
+
+    @Autowired
+    protected IllnessKindService illnessKindService;
+
+    @Autowired
+    protected PageviewCounter pageviewCounter;
+
+    @Autowired
+    protected IllnessTrending illnessTrending;
+
+    @Autowired
+    protected IllnessMedicineService illnessMedicineService;
+
     @Override
     public List<Illness> query(Illness o) {
-        QueryWrapper<Illness> wrapper = new QueryWrapper();
-        if (Assert.notEmpty(o)) {
-            Map<String, Object> bean2Map = BeanUtil.bean2Map(o);
-            for (String key : bean2Map.keySet()) {
-                if (Assert.isEmpty(bean2Map.get(key))) {
-                    continue;
-                }
-                wrapper.eq(VariableNameUtils.humpToLine(key), bean2Map.get(key));
-            }
-        }
-        return illnessDao.selectList(wrapper);
+        return illnessDao.selectList(buildQuery(o));
     }
 
     @Override
@@ -46,102 +55,189 @@ public class IllnessService extends BaseService<Illness> {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public Illness save(Illness o) {
         if (Assert.isEmpty(o.getId())) {
             illnessDao.insert(o);
         } else {
             illnessDao.updateById(o);
         }
-        return illnessDao.selectById(o.getId());
+        publishChange(o.getId());
+        Illness illness = illnessDao.selectById(o.getId());
+        afterCommit(() -> {
+            illnessIndex.put(illness);
+            typeahead.markDirty();
+        });
+        return illness;
     }
 
     @Override
     public Illness get(Serializable id) {
-        return illnessDao.selectById(id);
+        return getCached(id, illnessDao::selectById);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int delete(Serializable id) {
-        return illnessDao.deleteById(id);
+        int rows = illnessDao.deleteById(id);
+        publishChange(id);
+        afterCommit(() -> {
+            illnessIndex.remove(id);
+            illnessTrending.remove(Integer.valueOf(id.toString()));
+            typeahead.markDirty();
+        });
+        return rows;
     }
 
-    public Map<String, Object> findIllness(Integer kind, String illnessName, Integer page) {
+    /**
+     * 其他节点修改了疾病，除实体缓存外同步更新本地索引
+     */
+    @Override
+    protected void onRemoteChange(String key) {
+        super.onRemoteChange(key);
+        typeahead.markDirty();
+        if (key == null) {
+            illnessIndex.rebuild();
+            return;
+        }
+        Illness illness = illnessDao.selectById(key);
+        if (illness == null) {
+            illnessIndex.remove(key);
+            illnessTrending.remove(Integer.valueOf(key));
+        } else {
+            illnessIndex.put(illness);
+        }
+    }
 
-        Map<String, Object> map = new HashMap<>(4);
-        QueryWrapper<Illness> illnessQueryWrapper = new QueryWrapper<>();
+    /**
+     * 查询疾病列表
+     * @param page 页码，从1开始
+     * @param cursor 游标，浏览列表传入游标(空串表示第一页)时按 (create_time, id) 游标分页，关键词检索时忽略
+     */
+    public Map<String, Object> findIllness(Integer kind, String illnessName, Integer page, String cursor) {
+
+        Map<String, Object> map = new HashMap<>(8);
+        PageResult<Map<String, Object>> result;
         if (Assert.notEmpty(illnessName)) {
-            illnessQueryWrapper
-                    .like("illness_name", illnessName)
-                    .or()
-                    .like("include_reason", illnessName)
-                    .or()
-                    .like("illness_symptom", illnessName)
-                    .or()
-                    .like("special_symptom", illnessName);
-        }
-        if (kind != null) {
-            if (Assert.notEmpty(illnessName)) {
-                illnessQueryWrapper.last("and (kind_id = " + kind + ") ORDER BY create_time DESC limit " + (page - 1) * 9 + "," + page * 9);
-            } else {
-                illnessQueryWrapper.eq("kind_id", kind);
-                illnessQueryWrapper.orderByDesc("create_time");
-                illnessQueryWrapper.last("limit " + (page - 1) * 9 + "," + page * 9);
-            }
+            // 关键词检索走内存倒排索引，按相关度排序后只回表查询当前页
+            List<Integer> ids = illnessIndex.search(kind, illnessName);
+            page = page == null ? 1 : page;
+            int from = (int) Math.min(PageResult.offset(page, PAGE_SIZE), ids.size());
+            List<Map<String, Object>> list = selectMapsByIds(ids.subList(from, Math.min(from + PAGE_SIZE, ids.size())));
+            result = PageResult.of(list, ids.size(), page, PAGE_SIZE);
         } else {
-            illnessQueryWrapper.orderByDesc("create_time");
-            illnessQueryWrapper.last("limit " + (page - 1) * 9 + "," + page * 9);
+            result = browseMapsPage(illnessDao, () -> {
+                QueryWrapper<Illness> illnessQueryWrapper = new QueryWrapper<>();
+                if (kind != null) {
+                    illnessQueryWrapper.eq("kind_id", kind);
+                }
+                return illnessQueryWrapper;
+            }, page, cursor);
+        }
+        enrich(result.getRecords());
+        map.put("illness", result.getRecords());
+        map.put("size", result.getPages());
+        map.put("total", result.getTotal());
+        map.put("cursorMode", result.isSeek());
+        map.put("nextCursor", result.getNextCursor());
+        map.put("prevCursor", result.getPrevCursor());
+        return map;
+    }
 
+    /**
+     * 疾病详情，同时记录一次浏览
+     * @param visitor 访客标识，用于估计访客数
+     */
+    public Map<String, Object> findIllnessOne(Integer id, String visitor) {
+        Illness illness = get(id);
+        Map<String, Object> map = new HashMap<>(4);
+        map.put("illness", illness);
+        // 不存在的疾病不计浏览量与热度，避免任意id在内存与 pageview 表中留下记录、占用热门榜的位置
+        if (illness == null) {
+            return map;
         }
-        int size = illnessDao.selectMaps(illnessQueryWrapper).size();
-        List<Map<String, Object>> list = illnessDao.selectMaps(illnessQueryWrapper);
+        // 浏览量先记在内存里，由 PageviewCounter 定时批量写回
+        pageviewCounter.increment(id, visitor);
+        illnessTrending.record(id);
+
+        // 关联与药品各查询一次
+        List<Medicine> medicines = illnessMedicineService.findMedicines(id);
+        if (CollUtil.isNotEmpty(medicines)) {
+            map.put("medicine", medicines);
+        }
+
+        return map;
+    }
+
+    /**
+     * 最近24小时的热门疾病，数据来自内存中的滚动窗口
+     * @param limit 返回条数，不超过 {@link IllnessTrending#TOP_K}
+     */
+    public List<Map<String, Object>> trending(Integer limit) {
+        int size = limit == null || limit < 1 ? IllnessTrending.TOP_K : Math.min(limit, IllnessTrending.TOP_K);
+        return illnessTrending.top(size);
+    }
+
+    /**
+     * 为当前页的疾病补充浏览量、访客数与种类名称，浏览量一次 IN 查询再加上未写回的增量，种类名称来自共享的种类表，查询次数与页大小无关
+     */
+    private void enrich(List<Map<String, Object>> list) {
+        if (list.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = list.stream().map(l -> MapUtil.getInt(l, "id")).collect(Collectors.toList());
+        Map<Integer, Pageview> pageviews = selectPageviews(ids);
+        Map<Integer, String> kindNames = illnessKindService.getIdToNameMap();
         list.forEach(l -> {
             Integer id = MapUtil.getInt(l, "id");
-            Pageview pageInfo = pageviewDao.selectOne(new QueryWrapper<Pageview>().eq("illness_id", id));
-            l.put("kindName", "暂无归属类");
+            Pageview pageview = pageviews.get(id);
+            String kindName = kindNames.get(MapUtil.getInt(l, "kind_id"));
+            l.put("kindName", kindName == null ? "暂无归属类" : kindName);
             l.put("create_time", MapUtil.getDate(l, "create_time"));
-            l.put("pageview", pageInfo == null ? 0 : pageInfo.getPageviews());
-            Integer kindId = MapUtil.getInt(l, "kind_id");
-            if (Assert.notEmpty(kindId)) {
-                IllnessKind illnessKind = illnessKindDao.selectById(kindId);
-                if (Assert.notEmpty(illnessKind)) {
-                    l.put("kindName", illnessKind.getName());
-                }
-            }
+            l.put("pageview", pageviewOf(id, pageview));
+            l.put("visitors", pageviewCounter.visitors(id, pageview == null ? null : pageview.getVisitorSketch()));
         });
-        map.put("illness", list);
-        map.put("size", size < 9 ? 1 : size / 9 + 1);
-        return map;
     }
 
-    public Map<String, Object> findIllnessOne(Integer id) {
-        Illness illness = illnessDao.selectOne(new QueryWrapper<Illness>().eq("id", id));
-        List<IllnessMedicine> illnessMedicines = illnessMedicineDao.selectList(new QueryWrapper<IllnessMedicine>().eq("illness_id", id));
-        List<Medicine> list = new ArrayList<>(4);
-        Map<String, Object> map = new HashMap<>(4);
-        Pageview illness_id = pageviewDao.selectOne(new QueryWrapper<Pageview>().eq("illness_id", id));
-        if (Assert.isEmpty(illness_id)) {
-            illness_id = new Pageview();
-            illness_id.setIllnessId(id);
-            illness_id.setPageviews(1);
-            pageviewDao.insert(illness_id);
-        } else {
-            illness_id.setPageviews(illness_id.getPageviews() + 1);
-            pageviewDao.updateById(illness_id);
+    /**
+     * 为疾病补充浏览量与估计的访客数
+     */
+    public void fillPageviews(List<Illness> illnesses) {
+        if (illnesses.isEmpty()) {
+            return;
         }
-        map.put("illness", illness);
+        Map<Integer, Pageview> pageviews = selectPageviews(illnesses.stream().map(Illness::getId).collect(Collectors.toList()));
+        illnesses.forEach(illness -> {
+            Pageview pageview = pageviews.get(illness.getId());
+            illness.setPageview(pageviewOf(illness.getId(), pageview));
+            illness.setVisitors(pageviewCounter.visitors(illness.getId(), pageview == null ? null : pageview.getVisitorSketch()));
+        });
+    }
 
-        if (CollUtil.isNotEmpty(illnessMedicines)) {
-            illnessMedicines.forEach(illnessMedicine -> {
-                Medicine medicine = medicineDao.selectOne(new QueryWrapper<Medicine>().eq("id", illnessMedicine.getMedicineId()));
-                if (ObjectUtil.isNotNull(medicine)) {
-                    list.add(medicine);
-                }
-            });
-            map.put("medicine", list);
+    private Map<Integer, Pageview> selectPageviews(List<Integer> ids) {
+        Map<Integer, Pageview> pageviews = new HashMap<>(ids.size());
+        pageviewDao.selectList(new QueryWrapper<Pageview>().in("illness_id", ids))
+                .forEach(pageview -> pageviews.putIfAbsent(pageview.getIllnessId(), pageview));
+        return pageviews;
+    }
 
-        }
+    // 已写回的浏览量加上尚未写回的增量
+    private int pageviewOf(Integer id, Pageview pageview) {
+        int persisted = pageview == null || pageview.getPageviews() == null ? 0 : pageview.getPageviews();
+        return persisted + (int) pageviewCounter.pending(id);
+    }
 
-        return map;
+    /**
+     * 按id批量查询疾病，结果保持传入id的顺序
+     */
+    private List<Map<String, Object>> selectMapsByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Map<String, Object>> rows = illnessDao.selectMaps(new QueryWrapper<Illness>().in("id", ids))
+                .stream()
+                .collect(Collectors.toMap(row -> MapUtil.getInt(row, "id"), row -> row));
+        return ids.stream().map(rows::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     public Illness getOne(QueryWrapper<Illness> queryWrapper) {
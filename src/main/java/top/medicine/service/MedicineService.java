@@ -3,16 +3,18 @@ package top.medicine.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import top.medicine.component.MedicineIndex;
+import top.medicine.component.Typeahead;
 import top.medicine.dao.MedicineDao;
+import top.medicine.dto.PageResult;
 import top.medicine.entity.Medicine;
 import top.medicine.utils.Assert;
-import top.medicine.utils.BeanUtil;
-import top.medicine.utils.VariableNameUtils;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -21,19 +23,15 @@ public class MedicineService extends BaseService<Medicine> {
     @Autowired
     protected MedicineDao medicineDao;
 
+    @Autowired
+    protected MedicineIndex medicineIndex;
+
+    @Autowired
+    protected Typeahead typeahead;
+
     @Override
     public List<Medicine> query(Medicine o) {
-        QueryWrapper<Medicine> wrapper = new QueryWrapper();
-        if (Assert.notEmpty(o)) {
-            Map<String, Object> bean2Map = BeanUtil.bean2Map(o);
-            for (String key : bean2Map.keySet()) {
-                if (Assert.isEmpty(bean2Map.get(key))) {
-                    continue;
-                }
-                wrapper.eq(VariableNameUtils.humpToLine(key), bean2Map.get(key));
-            }
-        }
-        return medicineDao.selectList(wrapper);
+        return medicineDao.selectList(buildQuery(o));
     }
 
     @Override
@@ -42,42 +40,96 @@ public class MedicineService extends BaseService<Medicine> {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public Medicine save(Medicine o) {
         if (Assert.isEmpty(o.getId())) {
             medicineDao.insert(o);
         } else {
             medicineDao.updateById(o);
         }
-        return medicineDao.selectById(o.getId());
+        publishChange(o.getId());
+        Medicine medicine = medicineDao.selectById(o.getId());
+        afterCommit(() -> {
+            medicineIndex.put(medicine);
+            typeahead.markDirty();
+        });
+        return medicine;
     }
 
     @Override
     public Medicine get(Serializable id) {
-        return medicineDao.selectById(id);
+        return getCached(id, medicineDao::selectById);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int delete(Serializable id) {
-        return medicineDao.deleteById(id);
+        int rows = medicineDao.deleteById(id);
+        publishChange(id);
+        afterCommit(() -> {
+            medicineIndex.remove(id);
+            typeahead.markDirty();
+        });
+        return rows;
+    }
+
+    /**
+     * 其他节点修改了药品，除实体缓存外同步更新本地索引
+     */
+    @Override
+    protected void onRemoteChange(String key) {
+        super.onRemoteChange(key);
+        typeahead.markDirty();
+        if (key == null) {
+            medicineIndex.rebuild();
+            return;
+        }
+        Medicine medicine = medicineDao.selectById(key);
+        if (medicine == null) {
+            medicineIndex.remove(key);
+        } else {
+            medicineIndex.put(medicine);
+        }
     }
 
-    public Map<String, Object> getMedicineList(String nameValue, Integer page) {
+    /**
+     * 查询药品列表
+     * @param page 页码，从1开始
+     * @param cursor 游标，浏览列表传入游标(空串表示第一页)时按 (create_time, id) 游标分页，关键词检索时忽略
+     */
+    public Map<String, Object> getMedicineList(String nameValue, Integer page, String cursor) {
 
-        List<Medicine> medicineList = null;
-        Map<String, Object> map = new HashMap<>(4);
+        Map<String, Object> map = new HashMap<>(8);
+        PageResult<Medicine> result;
         if (Assert.notEmpty(nameValue)) {
-            medicineList = medicineDao.selectList(new QueryWrapper<Medicine>().
-                    like("medicine_name", nameValue)
-                    .or().like("keyword", nameValue)
-                    .or().like("medicine_effect", nameValue)
-                    .last("limit " + (page - 1) * 9 + "," + page * 9));
+            // 关键词检索走内存倒排索引，按相关度排序后只回表查询当前页
+            List<Integer> ids = medicineIndex.search(nameValue);
+            page = page == null ? 1 : page;
+            int from = (int) Math.min(PageResult.offset(page, PAGE_SIZE), ids.size());
+            List<Medicine> medicineList = selectByIds(ids.subList(from, Math.min(from + PAGE_SIZE, ids.size())));
+            result = PageResult.of(medicineList, ids.size(), page, PAGE_SIZE);
         } else {
-            medicineList = medicineDao.selectList(new QueryWrapper<Medicine>()
-                    .last("limit " + (page - 1) * 9 + "," + page * 9));
+            result = browsePage(medicineDao, QueryWrapper::new, page, cursor, Medicine::getCreateTime, Medicine::getId);
         }
 
-        map.put("medicineList", medicineList);
-        map.put("size", medicineList.size() < 9 ? 1 : medicineList.size() / 9 + 1);
+        map.put("medicineList", result.getRecords());
+        map.put("size", result.getPages());
+        map.put("total", result.getTotal());
+        map.put("cursorMode", result.isSeek());
+        map.put("nextCursor", result.getNextCursor());
+        map.put("prevCursor", result.getPrevCursor());
         return map;
     }
+
+    /**
+     * 按id批量查询药品，结果保持传入id的顺序
+     */
+    private List<Medicine> selectByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Medicine> medicines = medicineDao.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(Medicine::getId, Function.identity()));
+        return ids.stream().map(medicines::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
 }
\ No newline at end of file
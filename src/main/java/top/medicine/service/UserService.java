@@ -2,10 +2,9 @@ package top.medicine.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import top.medicine.entity.User;
 import top.medicine.utils.Assert;
-import top.medicine.utils.BeanUtil;
-import top.medicine.utils.VariableNameUtils;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -19,17 +18,7 @@ public class UserService extends BaseService<User> {
 
     @Override
     public List<User> query(User o) {
-        QueryWrapper<User> wrapper = new QueryWrapper();
-        if (Assert.notEmpty(o)) {
-            Map<String, Object> bean2Map = BeanUtil.bean2Map(o);
-            for (String key : bean2Map.keySet()) {
-                if (Assert.isEmpty(bean2Map.get(key))) {
-                    continue;
-                }
-                wrapper.eq(VariableNameUtils.humpToLine(key), bean2Map.get(key));
-            }
-        }
-        return userDao.selectList(wrapper);
+        return userDao.selectList(buildQuery(o));
     }
 
     @Override
@@ -38,6 +27,7 @@ public class UserService extends BaseService<User> {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public User save(User o) {
         if (o == null) {
             return null;
@@ -47,17 +37,21 @@ public class UserService extends BaseService<User> {
         } else {
             userDao.updateById(o);
         }
+        publishChange(o.getId());
         return userDao.selectById(o.getId());
     }
 
     @Override
     public User get(Serializable id) {
-        return userDao.selectById(id);
+        return getCached(id, userDao::selectById);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int delete(Serializable id) {
-        return userDao.deleteById(id);
+        int rows = userDao.deleteById(id);
+        publishChange(id);
+        return rows;
     }
 
     public Map<Integer, String> getIdToNameMap(){
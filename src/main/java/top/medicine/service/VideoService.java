@@ -1,20 +1,18 @@
 package top.medicine.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import top.medicine.entity.Video;
 import top.medicine.utils.Assert;
-import top.medicine.utils.BeanUtil;
-import top.medicine.utils.VariableNameUtils;
 
 import java.io.Serializable;
 import java.util.List;
-import java.util.Map;
 
 @Service
 public class VideoService extends BaseService<Video>{
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public Video save(Video o) {
         if (o == null) {
             return null;
@@ -24,32 +22,26 @@ public class VideoService extends BaseService<Video>{
         } else {
             videoDao.updateById(o);
         }
+        publishChange(o.getId());
         return videoDao.selectById(o.getId());
     }
 
     @Override
     public Video get(Serializable id) {
-        return videoDao.selectById(id);
+        return getCached(id, videoDao::selectById);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int delete(Serializable id) {
-        return videoDao.deleteById(id);
+        int rows = videoDao.deleteById(id);
+        publishChange(id);
+        return rows;
     }
 
     @Override
     public List<Video> query(Video o) {
-        QueryWrapper<Video> wrapper = new QueryWrapper();
-        if (Assert.notEmpty(o)) {
-            Map<String, Object> bean2Map = BeanUtil.bean2Map(o);
-            for (String key : bean2Map.keySet()) {
-                if (Assert.isEmpty(bean2Map.get(key))) {
-                    continue;
-                }
-                wrapper.eq(VariableNameUtils.humpToLine(key), bean2Map.get(key));
-            }
-        }
-        return videoDao.selectList(wrapper);
+        return videoDao.selectList(buildQuery(o));
     }
 
     @Override
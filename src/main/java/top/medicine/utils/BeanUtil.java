@@ -3,13 +3,27 @@ package top.medicine.utils;
 import com.alibaba.fastjson.JSON;
 import org.springframework.cglib.beans.BeanCopier;
 import org.springframework.cglib.beans.BeanMap;
+import org.springframework.cglib.core.CodeGenerationException;
 
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 
 public class BeanUtil {
 
-    private static Map<String, BeanCopier> beanCopierMap = new HashMap();
+    // 源类型 -> (目标类型 -> 复制器)，命中时无锁、不分配对象
+    private static final ClassValue<Map<Class<?>, Copier>> COPIERS = new ClassValue<Map<Class<?>, Copier>>() {
+        @Override
+        protected Map<Class<?>, Copier> computeValue(Class<?> src) {
+            return new ConcurrentHashMap<>();
+        }
+    };
 
 
     public static <T> T copy(Object src, Class<T> clazz)
@@ -23,13 +37,16 @@ public class BeanUtil {
 
     public static void copy(Object src, Object des) {
         if ((null == src) || (null == des)) return;
-        String key = generateKey(src.getClass(), des.getClass());
-        BeanCopier copier = (BeanCopier) beanCopierMap.get(key);
+        copier(src.getClass(), des.getClass()).copy(src, des);
+    }
+
+    private static Copier copier(Class<?> src, Class<?> des) {
+        Map<Class<?>, Copier> copiers = COPIERS.get(src);
+        Copier copier = copiers.get(des);
         if (null == copier) {
-            copier = BeanCopier.create(src.getClass(), des.getClass(), false);
-            beanCopierMap.put(key, copier);
+            copier = copiers.computeIfAbsent(des, target -> Copier.create(src, target));
         }
-        copier.copy(src, des, null);
+        return copier;
     }
 
 
@@ -112,10 +129,6 @@ public class BeanUtil {
         }
     }
 
-    private static String generateKey(Class<?> src, Class<?> des) {
-        return src.getName() + des.getName();
-    }
-
     
     public static <T> String beanToString(T value) {
         if (value == null) {
@@ -151,4 +164,90 @@ public class BeanUtil {
     }
 
 
+    /**
+     * 同名且类型兼容的属性复制，优先使用 cglib 生成的 BeanCopier
+     * JDK 17 未开放 java.lang 时 cglib 无法定义类，改为 LambdaMetafactory 生成的 getter/setter 逐个复制
+     */
+    private interface Copier {
+
+        void copy(Object src, Object des);
+
+        static Copier create(Class<?> src, Class<?> des) {
+            try {
+                BeanCopier beanCopier = BeanCopier.create(src, des, false);
+                return (s, d) -> beanCopier.copy(s, d, null);
+            } catch (CodeGenerationException e) {
+                return PropertyCopier.create(src, des);
+            }
+        }
+    }
+
+    private static final class PropertyCopier implements Copier {
+
+        private final Function<Object, Object>[] getters;
+
+        private final BiConsumer<Object, Object>[] setters;
+
+        private PropertyCopier(List<Function<Object, Object>> getters, List<BiConsumer<Object, Object>> setters) {
+            this.getters = getters.toArray(new Function[0]);
+            this.setters = setters.toArray(new BiConsumer[0]);
+        }
+
+        @Override
+        public void copy(Object src, Object des) {
+            for (int i = 0; i < getters.length; i++) {
+                setters[i].accept(des, getters[i].apply(src));
+            }
+        }
+
+        static PropertyCopier create(Class<?> src, Class<?> des) {
+            List<Function<Object, Object>> getters = new ArrayList<>();
+            List<BiConsumer<Object, Object>> setters = new ArrayList<>();
+            try {
+                Map<String, Method> readers = new HashMap<>();
+                for (PropertyDescriptor descriptor : Introspector.getBeanInfo(src, Object.class).getPropertyDescriptors()) {
+                    if (descriptor.getReadMethod() != null) {
+                        readers.put(descriptor.getName(), descriptor.getReadMethod());
+                    }
+                }
+                MethodHandles.Lookup srcLookup = MethodHandles.privateLookupIn(src, MethodHandles.lookup());
+                MethodHandles.Lookup desLookup = MethodHandles.privateLookupIn(des, MethodHandles.lookup());
+                for (PropertyDescriptor descriptor : Introspector.getBeanInfo(des, Object.class).getPropertyDescriptors()) {
+                    Method writer = descriptor.getWriteMethod();
+                    Method reader = readers.get(descriptor.getName());
+                    // 与 BeanCopier 一致：setter 参数类型能接收 getter 返回值时才复制
+                    if (writer == null || reader == null
+                            || !writer.getParameterTypes()[0].isAssignableFrom(reader.getReturnType())) {
+                        continue;
+                    }
+                    getters.add(getter(srcLookup, reader));
+                    setters.add(setter(desLookup, writer));
+                }
+            } catch (Throwable e) {
+                throw new IllegalStateException("创建属性复制器失败: " + src.getName() + " -> " + des.getName(), e);
+            }
+            return new PropertyCopier(getters, setters);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Function<Object, Object> getter(MethodHandles.Lookup lookup, Method method) throws Throwable {
+            MethodHandle handle = lookup.unreflect(method);
+            return (Function<Object, Object>) LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap()).getTarget().invoke();
+        }
+
+        @SuppressWarnings("unchecked")
+        private static BiConsumer<Object, Object> setter(MethodHandles.Lookup lookup, Method method) throws Throwable {
+            MethodHandle handle = lookup.unreflect(method);
+            Class<?> value = MethodType.methodType(method.getParameterTypes()[0]).wrap().returnType();
+            return (BiConsumer<Object, Object>) LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(void.class, method.getDeclaringClass(), value)).getTarget().invoke();
+        }
+    }
 }
@@ -0,0 +1,163 @@
+package top.medicine.utils;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+
+/**
+ * @description 实体类的字段元数据：属性名、列名与 getter，按类只解析一次
+ * getter 通过 LambdaMetafactory 生成为普通的 Function 调用，读取属性时不再经过反射或 BeanMap
+ */
+public final class EntityMeta<T> {
+
+    private static final ClassValue<EntityMeta<?>> CACHE = new ClassValue<EntityMeta<?>>() {
+        @Override
+        protected EntityMeta<?> computeValue(Class<?> type) {
+            return new EntityMeta<>(type);
+        }
+    };
+
+    private final Class<T> type;
+
+    private final List<Column<T>> columns;
+
+    @SuppressWarnings("unchecked")
+    public static <T> EntityMeta<T> of(Class<T> type) {
+        return (EntityMeta<T>) CACHE.get(type);
+    }
+
+    private EntityMeta(Class<T> type) {
+        this.type = type;
+        List<Column<T>> list = new ArrayList<>();
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(type, Object.class);
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+                Method getter = descriptor.getReadMethod();
+                if (getter == null) {
+                    continue;
+                }
+                TableField tableField = findField(type, descriptor.getName());
+                if (tableField != null && !tableField.exist()) {
+                    continue;
+                }
+                String column = tableField != null && Assert.notEmpty(tableField.value())
+                        ? tableField.value() : VariableNameUtils.humpToLine(descriptor.getName());
+                list.add(new Column<>(descriptor.getName(), column, getter(lookup, getter)));
+            }
+        } catch (Throwable e) {
+            throw new IllegalStateException("解析实体元数据失败: " + type.getName(), e);
+        }
+        this.columns = Collections.unmodifiableList(list);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * 实体的全部数据库列，顺序与属性解析顺序一致
+     */
+    public List<Column<T>> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 以实体的非空属性作为等值条件，与原先 bean2Map 逐个属性 eq 的结果相同
+     */
+    public QueryWrapper<T> toWrapper(T o) {
+        QueryWrapper<T> wrapper = new QueryWrapper<>();
+        if (o == null) {
+            return wrapper;
+        }
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            Column<T> column = columns.get(i);
+            Object value = column.getter.apply(o);
+            if (value != null) {
+                wrapper.eq(column.column, value);
+            }
+        }
+        return wrapper;
+    }
+
+    /**
+     * 为 getter 生成 Function 实现；实体与本类不在同一个类加载器(如 devtools 重启)时退回 MethodHandle 调用
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Function<T, Object> getter(MethodHandles.Lookup lookup, Method method) throws Throwable {
+        MethodHandle handle = lookup.unreflect(method);
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap());
+            return (Function<T, Object>) site.getTarget().invoke();
+        } catch (LambdaConversionException e) {
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+            return o -> {
+                try {
+                    return generic.invokeExact((Object) o);
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            };
+        }
+    }
+
+    private static TableField findField(Class<?> type, String name) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(name);
+                return field.getAnnotation(TableField.class);
+            } catch (NoSuchFieldException e) {
+                // 继续在父类中查找
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 一个数据库列
+     */
+    public static final class Column<T> {
+
+        // 属性名
+        private final String property;
+
+        // 列名
+        private final String column;
+
+        private final Function<T, Object> getter;
+
+        Column(String property, String column, Function<T, Object> getter) {
+            this.property = property;
+            this.column = column;
+            this.getter = getter;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public Object get(T o) {
+            return getter.apply(o);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package top.medicine.utils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+
+/**
+ * @description 多字段加权的内存倒排索引，按 BM25F 计算相关度
+ * 文档由 id 与若干字段文本组成，字段顺序与构造时传入的权重一一对应
+ */
+public class FullTextIndex {
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private final double[] weights;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 词元 -> (文档id -> 各字段词频)
+    private final Map<String, Map<Integer, int[]>> postings = new HashMap<>();
+
+    // 文档id -> 各字段长度
+    private final Map<Integer, int[]> lengths = new HashMap<>();
+
+    // 文档id -> 文档包含的词元，删除时使用
+    private final Map<Integer, Set<String>> terms = new HashMap<>();
+
+    // 各字段长度之和，用于计算平均长度
+    private final long[] totalLengths;
+
+    /**
+     * @param weights 各字段权重
+     */
+    public FullTextIndex(double... weights) {
+        this.weights = weights.clone();
+        this.totalLengths = new long[weights.length];
+    }
+
+    /**
+     * 新增或替换一个文档
+     * @param id 文档id
+     * @param fields 各字段文本，个数需与权重一致
+     */
+    public void put(Integer id, String... fields) {
+        if (fields.length != weights.length) {
+            throw new IllegalArgumentException("字段个数与权重个数不一致");
+        }
+        Map<String, int[]> frequencies = new HashMap<>();
+        int[] length = new int[fields.length];
+        for (int f = 0; f < fields.length; f++) {
+            List<String> tokens = TextTokenizer.tokenize(fields[f]);
+            length[f] = tokens.size();
+            for (String token : tokens) {
+                frequencies.computeIfAbsent(token, k -> new int[weights.length])[f]++;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            removeDoc(id);
+            frequencies.forEach((token, tf) -> postings.computeIfAbsent(token, k -> new HashMap<>()).put(id, tf));
+            lengths.put(id, length);
+            terms.put(id, frequencies.keySet());
+            for (int f = 0; f < length.length; f++) {
+                totalLengths[f] += length[f];
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除一个文档
+     */
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return lengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 检索与查询相关的文档
+     * @param query 查询文本
+     * @param filter 文档id过滤条件
+     * @return 命中的文档id，按相关度从高到低排序，相关度相同时id大的在前
+     */
+    public List<Integer> search(String query, IntPredicate filter) {
+        List<String> queryTokens = TextTokenizer.tokenizeQuery(query);
+        if (queryTokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Integer, double[]> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int docCount = lengths.size();
+            double[] avgLengths = new double[weights.length];
+            for (int f = 0; f < weights.length; f++) {
+                avgLengths[f] = docCount == 0 ? 1 : Math.max(1.0, (double) totalLengths[f] / docCount);
+            }
+            for (String token : queryTokens) {
+                Map<Integer, int[]> docs = postings.get(token);
+                if (docs == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - docs.size() + 0.5) / (docs.size() + 0.5));
+                docs.forEach((id, tf) -> {
+                    if (!filter.test(id)) {
+                        return;
+                    }
+                    int[] length = lengths.get(id);
+                    double weightedTf = 0;
+                    for (int f = 0; f < weights.length; f++) {
+                        if (tf[f] > 0) {
+                            weightedTf += weights[f] * tf[f] / (1 - B + B * length[f] / avgLengths[f]);
+                        }
+                    }
+                    // [0]为得分，[1]为命中的查询词元个数
+                    double[] score = scores.computeIfAbsent(id, k -> new double[2]);
+                    score[0] += idf * weightedTf * (K1 + 1) / (weightedTf + K1);
+                    score[1]++;
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // 命中的查询词元越多越靠前
+        int tokenCount = queryTokens.size();
+        return scores.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<Integer, double[]> e) -> -e.getValue()[0] * e.getValue()[1] / tokenCount)
+                        .thenComparing(Map.Entry::getKey, Comparator.reverseOrder()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private void removeDoc(Integer id) {
+        int[] length = lengths.remove(id);
+        if (length == null) {
+            return;
+        }
+        for (int f = 0; f < length.length; f++) {
+            totalLengths[f] -= length[f];
+        }
+        for (String token : terms.remove(id)) {
+            Map<Integer, int[]> docs = postings.get(token);
+            if (docs != null) {
+                docs.remove(id);
+                if (docs.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package top.medicine.utils;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+
+/**
+ * @description HyperLogLog 基数估计，精度 p=12，共4096个寄存器，标准误差约1.6%
+ * 非线程安全，并发写入需要调用方加锁
+ */
+public class HyperLogLog {
+
+    // 寄存器下标占用的hash位数
+    public static final int P = 12;
+
+    // 寄存器个数
+    private static final int M = 1 << P;
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / M);
+
+    // 序列化格式：稀疏格式为 (下标2字节, 值1字节) 列表，稠密格式每个寄存器6位
+    private static final byte SPARSE = 1;
+    private static final byte DENSE = 2;
+
+    // 稠密格式的字节数，寄存器最大值为 64 - P + 1 = 53，6位足够
+    private static final int DENSE_BYTES = M * 6 / 8;
+
+    private final byte[] registers = new byte[M];
+
+    /**
+     * 记录一个元素
+     * @return 估计值是否可能发生变化
+     */
+    public boolean offer(String value) {
+        return offerHash(MurmurHash.hash64(value));
+    }
+
+    public boolean offerHash(long hash) {
+        int index = (int) (hash >>> (64 - P));
+        // 补一个哨兵位，保证剩余位全为0时排名不超过 64 - P + 1
+        int rank = Long.numberOfLeadingZeros((hash << P) | (1L << (P - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 合并另一个估计器，相当于对两个集合求并集
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other != null) {
+            for (int i = 0; i < M; i++) {
+                if (other.registers[i] > registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+        }
+        return this;
+    }
+
+    public HyperLogLog copy() {
+        return new HyperLogLog().merge(this);
+    }
+
+    /**
+     * 估计不同元素的个数
+     */
+    public long cardinality() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * M * M / sum;
+        // 基数较小时改用线性计数，64位hash不需要大基数修正
+        if (estimate <= 2.5 * M && zeros > 0) {
+            estimate = M * Math.log((double) M / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 序列化，非零寄存器较少时用稀疏格式，否则每个寄存器占6位，最多3073字节
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+        if (nonZero * 3 < DENSE_BYTES) {
+            byte[] bytes = new byte[3 + nonZero * 3];
+            bytes[0] = SPARSE;
+            bytes[1] = (byte) (nonZero >>> 8);
+            bytes[2] = (byte) nonZero;
+            int pos = 3;
+            for (int i = 0; i < M; i++) {
+                if (registers[i] != 0) {
+                    bytes[pos++] = (byte) (i >>> 8);
+                    bytes[pos++] = (byte) i;
+                    bytes[pos++] = registers[i];
+                }
+            }
+            return bytes;
+        }
+        byte[] bytes = new byte[1 + DENSE_BYTES];
+        bytes[0] = DENSE;
+        // 每4个寄存器打包成3个字节
+        for (int i = 0, pos = 1; i < M; i += 4, pos += 3) {
+            int packed = registers[i] << 18 | registers[i + 1] << 12 | registers[i + 2] << 6 | registers[i + 3];
+            bytes[pos] = (byte) (packed >>> 16);
+            bytes[pos + 1] = (byte) (packed >>> 8);
+            bytes[pos + 2] = (byte) packed;
+        }
+        return bytes;
+    }
+
+    /**
+     * 反序列化，为空时返回空的估计器
+     * @throws IllegalArgumentException 格式不正确
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog hll = new HyperLogLog();
+        if (bytes == null || bytes.length == 0) {
+            return hll;
+        }
+        if (bytes[0] == SPARSE && bytes.length >= 3) {
+            int nonZero = (bytes[1] & 0xFF) << 8 | (bytes[2] & 0xFF);
+            if (bytes.length != 3 + nonZero * 3) {
+                throw new IllegalArgumentException("HyperLogLog 稀疏格式长度不正确");
+            }
+            for (int pos = 3; pos < bytes.length; pos += 3) {
+                int index = ((bytes[pos] & 0xFF) << 8 | (bytes[pos + 1] & 0xFF)) & (M - 1);
+                hll.registers[index] = bytes[pos + 2];
+            }
+            return hll;
+        }
+        if (bytes[0] == DENSE && bytes.length == 1 + DENSE_BYTES) {
+            for (int i = 0, pos = 1; i < M; i += 4, pos += 3) {
+                int packed = (bytes[pos] & 0xFF) << 16 | (bytes[pos + 1] & 0xFF) << 8 | (bytes[pos + 2] & 0xFF);
+                hll.registers[i] = (byte) (packed >>> 18 & 0x3F);
+                hll.registers[i + 1] = (byte) (packed >>> 12 & 0x3F);
+                hll.registers[i + 2] = (byte) (packed >>> 6 & 0x3F);
+                hll.registers[i + 3] = (byte) (packed & 0x3F);
+            }
+            return hll;
+        }
+        throw new IllegalArgumentException("无法识别的 HyperLogLog 格式");
+    }
+}
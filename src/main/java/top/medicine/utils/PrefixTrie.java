@@ -0,0 +1,179 @@
+package top.medicine.utils;
+
+import java.util.*;
+
+
+/**
+ * @description 只读的前缀树，每个节点预先保存以该前缀开头的权重最高的 K 个值
+ * 查询只需沿前缀走到对应节点并截取列表，耗时与词典大小无关；内容变化时整体重建后替换
+ */
+public class PrefixTrie<V> {
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private final Node root;
+
+    private final int topK;
+
+    private PrefixTrie(Node root, int topK) {
+        this.root = root;
+        this.topK = topK;
+    }
+
+    public static <V> Builder<V> builder(int topK) {
+        return new Builder<>(topK);
+    }
+
+    /**
+     * 以 prefix 开头的值，按权重从高到低，最多 min(limit, K) 个
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> search(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        int size = Math.min(limit, node.top.length);
+        List<V> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add((V) node.top[i]);
+        }
+        return result;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * 统一大小写与首尾空白，建树与查询使用同一规则
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+
+        // 子节点的字符，升序，与 children 一一对应
+        private final char[] keys;
+
+        private final Node[] children;
+
+        // 以当前前缀开头的前 K 个值
+        private final Object[] top;
+
+        Node(char[] keys, Node[] children, Object[] top) {
+            this.keys = keys;
+            this.children = children;
+            this.top = top;
+        }
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+    }
+
+    /**
+     * 构建前缀树，非线程安全
+     */
+    public static class Builder<V> {
+
+        private final int topK;
+
+        private final BuildNode root = new BuildNode();
+
+        private Builder(int topK) {
+            this.topK = topK;
+        }
+
+        /**
+         * @param key 匹配用的文本
+         * @param value 命中时返回的值
+         * @param weight 排序权重，越大越靠前
+         */
+        public Builder<V> add(String key, V value, long weight) {
+            String normalized = normalize(key);
+            if (normalized.isEmpty()) {
+                return this;
+            }
+            BuildNode node = root;
+            for (int i = 0; i < normalized.length(); i++) {
+                node = node.children.computeIfAbsent(normalized.charAt(i), c -> new BuildNode());
+            }
+            node.entries.add(new Entry(normalized, value, weight));
+            return this;
+        }
+
+        public PrefixTrie<V> build() {
+            return new PrefixTrie<>(freeze(root).node, topK);
+        }
+
+        // 自底向上合并子节点的前 K 个，得到当前节点的前 K 个
+        private Frozen freeze(BuildNode node) {
+            List<Entry> candidates = new ArrayList<>(node.entries);
+            char[] keys = node.children.isEmpty() ? NO_KEYS : new char[node.children.size()];
+            Node[] children = new Node[node.children.size()];
+            int i = 0;
+            for (Map.Entry<Character, BuildNode> child : node.children.entrySet()) {
+                Frozen frozen = freeze(child.getValue());
+                keys[i] = child.getKey();
+                children[i++] = frozen.node;
+                candidates.addAll(frozen.top);
+            }
+            candidates.sort(ORDER);
+            List<Entry> top = candidates.size() > topK ? new ArrayList<>(candidates.subList(0, topK)) : candidates;
+            Object[] values = new Object[top.size()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = top.get(j).value;
+            }
+            return new Frozen(new Node(keys, children, values), top);
+        }
+
+        // 权重高的在前，权重相同时短的在前，再按文本排序
+        private static final Comparator<Entry> ORDER = Comparator.comparingLong((Entry e) -> -e.weight)
+                .thenComparingInt(e -> e.key.length())
+                .thenComparing(e -> e.key);
+
+        private static final class BuildNode {
+
+            private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+
+            private final List<Entry> entries = new ArrayList<>(1);
+        }
+
+        private static final class Entry {
+
+            private final String key;
+
+            private final Object value;
+
+            private final long weight;
+
+            Entry(String key, Object value, long weight) {
+                this.key = key;
+                this.value = value;
+                this.weight = weight;
+            }
+        }
+
+        private static final class Frozen {
+
+            private final Node node;
+
+            private final List<Entry> top;
+
+            Frozen(Node node, List<Entry> top) {
+                this.node = node;
+                this.top = top;
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package top.medicine.utils;
+
+import java.util.*;
+
+
+/**
+ * @description 中文友好的分词工具
+ * 按标点切分出连续片段并去掉片段首尾的多字停用词，中文片段切成相邻两字、三字的 n-gram，
+ * 英文与数字片段切成两字符、三字符的 n-gram 并保留整词，以支持按药品编号、英文名的一部分检索
+ */
+public class TextTokenizer {
+
+    // 停用词，按长度倒序匹配
+    private static final List<String> STOP_WORDS = new ArrayList<>(Arrays.asList(
+            "以及", "或者", "等等", "可能", "一些", "一般", "常见", "通常", "由于", "导致", "引起", "包括", "出现", "患者",
+            "的", "了", "和", "与", "及", "或", "等", "之", "其", "并", "而", "吗", "呢", "啊",
+            "a", "an", "and", "of", "or", "the", "to"));
+
+    private static final Set<String> STOP_WORD_SET = new HashSet<>(STOP_WORDS);
+
+    static {
+        STOP_WORDS.sort((a, b) -> b.length() - a.length());
+    }
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 文档侧分词：中文单字、两字、三字 n-gram 全部输出，英文与数字输出两字符、三字符 n-gram，
+     * 重复出现的词元会重复输出，用于统计词频
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (Segment segment : segments(text)) {
+            if (!segment.cjk) {
+                String s = segment.text;
+                // 单字符与超过三个字符的片段保留整词，其余情况整词已包含在 n-gram 中
+                if (s.length() == 1 || s.length() > 3) {
+                    tokens.add(s);
+                }
+                for (int i = 0; i + 2 <= s.length(); i++) {
+                    tokens.add(s.substring(i, i + 2));
+                    if (i + 3 <= s.length()) {
+                        tokens.add(s.substring(i, i + 3));
+                    }
+                }
+                continue;
+            }
+            String s = segment.text;
+            for (int i = 0; i < s.length(); i++) {
+                tokens.add(s.substring(i, i + 1));
+                if (i + 2 <= s.length()) {
+                    tokens.add(s.substring(i, i + 2));
+                }
+                if (i + 3 <= s.length()) {
+                    tokens.add(s.substring(i, i + 3));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 查询侧分词：单字片段输出单字，中文片段输出两字、三字 n-gram，
+     * 英文与数字片段不超过两个字符时整体输出，否则输出三字符 n-gram，超过三个字符时再加上整词，结果去重
+     */
+    public static List<String> tokenizeQuery(String query) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (Segment segment : segments(query)) {
+            String s = segment.text;
+            if (s.length() == 1 || !segment.cjk && s.length() == 2) {
+                tokens.add(s);
+                continue;
+            }
+            if (!segment.cjk) {
+                for (int i = 0; i + 3 <= s.length(); i++) {
+                    tokens.add(s.substring(i, i + 3));
+                }
+                // 整词匹配的文档排在部分匹配之前
+                if (s.length() > 3) {
+                    tokens.add(s);
+                }
+                continue;
+            }
+            for (int i = 0; i + 2 <= s.length(); i++) {
+                tokens.add(s.substring(i, i + 2));
+                if (i + 3 <= s.length()) {
+                    tokens.add(s.substring(i, i + 3));
+                }
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    private static List<Segment> segments(String text) {
+        List<Segment> segments = new ArrayList<>();
+        if (Assert.isEmpty(text)) {
+            return segments;
+        }
+        String s = text.toLowerCase();
+        StringBuilder current = new StringBuilder();
+        boolean cjk = false;
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            boolean isCjk = isCjk(c);
+            if (!isCjk && !Character.isLetterOrDigit(c)) {
+                flush(segments, current, cjk);
+            } else {
+                if (current.length() > 0 && isCjk != cjk) {
+                    flush(segments, current, cjk);
+                }
+                cjk = isCjk;
+                current.append(c);
+            }
+            i++;
+        }
+        flush(segments, current, cjk);
+        return segments;
+    }
+
+    private static void flush(List<Segment> segments, StringBuilder current, boolean cjk) {
+        if (current.length() == 0) {
+            return;
+        }
+        String text = current.toString();
+        current.setLength(0);
+        // 英文停用词按整词过滤；中文停用词不从片段中间删除，避免把词语拆开
+        if (cjk) {
+            text = trimStopWords(text);
+        } else if (STOP_WORD_SET.contains(text)) {
+            return;
+        }
+        if (!text.isEmpty()) {
+            segments.add(new Segment(text, cjk));
+        }
+    }
+
+    /**
+     * 去掉片段首尾的停用词，单字停用词常是词语的一部分(如"和胃"、"其他")，只在单独成段时去掉
+     */
+    private static String trimStopWords(String text) {
+        if (STOP_WORD_SET.contains(text)) {
+            return "";
+        }
+        boolean trimmed = true;
+        while (trimmed && !text.isEmpty()) {
+            trimmed = false;
+            for (String stopWord : STOP_WORDS) {
+                if (stopWord.length() < 2 || !isCjk(stopWord.charAt(0))) {
+                    continue;
+                }
+                if (text.startsWith(stopWord)) {
+                    text = text.substring(stopWord.length());
+                    trimmed = true;
+                    break;
+                }
+                if (text.endsWith(stopWord)) {
+                    text = text.substring(0, text.length() - stopWord.length());
+                    trimmed = true;
+                    break;
+                }
+            }
+        }
+        return text;
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+    private static final class Segment {
+        final String text;
+        final boolean cjk;
+
+        Segment(String text, boolean cjk) {
+            this.text = text;
+            this.cjk = cjk;
+        }
+    }
+}
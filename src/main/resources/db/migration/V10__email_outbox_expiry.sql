@@ -0,0 +1,6 @@
+-- ----------------------------
+-- email_outbox 增加过期时间，过期的验证码邮件不再发送；按 (status, update_time) 定期删除已发送和发送失败的邮件
+-- ----------------------------
+ALTER TABLE `email_outbox`
+    ADD COLUMN `expire_time` datetime DEFAULT NULL COMMENT '过期时间，为空表示不过期' AFTER `next_attempt_time`,
+    ADD KEY `idx_status_update_time` (`status`, `update_time`);
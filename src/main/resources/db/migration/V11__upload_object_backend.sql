@@ -0,0 +1,10 @@
+-- ----------------------------
+-- upload_object 按 (内容, 存储) 去重，切换存储后不会返回另一个存储中的地址
+-- 已有记录无法确定写入的是哪个存储，直接清空，相同内容下次上传时重新保存并记录
+-- ----------------------------
+DELETE FROM `upload_object`;
+
+ALTER TABLE `upload_object`
+    ADD COLUMN `backend` varchar(100) NOT NULL COMMENT '保存对象的存储，如 oss:存储桶名' AFTER `sha256`,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`sha256`, `backend`);
@@ -0,0 +1,18 @@
+-- ----------------------------
+-- pageview 按 illness_id 唯一，供浏览量批量 upsert 使用
+-- ----------------------------
+-- 合并同一疾病的重复浏览记录
+UPDATE `pageview` p
+    JOIN (SELECT `illness_id`, MIN(`id`) AS `keep_id`, SUM(IFNULL(`pageviews`, 0)) AS `total`
+          FROM `pageview`
+          WHERE `illness_id` IS NOT NULL
+          GROUP BY `illness_id`
+          HAVING COUNT(*) > 1) d ON p.`id` = d.`keep_id`
+SET p.`pageviews` = d.`total`;
+
+DELETE p
+FROM `pageview` p
+         JOIN `pageview` k ON p.`illness_id` = k.`illness_id` AND p.`id` > k.`id`;
+
+ALTER TABLE `pageview`
+    ADD UNIQUE KEY `uk_illness_id` (`illness_id`);
@@ -0,0 +1,5 @@
+-- ----------------------------
+-- pageview 增加访客数 HyperLogLog 估计器
+-- ----------------------------
+ALTER TABLE `pageview`
+    ADD COLUMN `visitor_sketch` blob DEFAULT NULL COMMENT '访客数 HyperLogLog 估计器' AFTER `illness_id`;
@@ -0,0 +1,11 @@
+-- ----------------------------
+-- history 同一用户的关键词唯一，重复搜索只更新时间；按 (user_id, update_time) 查询最近记录与清理旧记录
+-- ----------------------------
+-- 同一用户重复的关键词只保留最新的一条
+DELETE h
+FROM `history` h
+         JOIN `history` k ON h.`user_id` = k.`user_id` AND h.`keyword` = k.`keyword` AND h.`id` < k.`id`;
+
+ALTER TABLE `history`
+    ADD UNIQUE KEY `uk_user_keyword` (`user_id`, `keyword`),
+    ADD KEY `idx_user_update_time` (`user_id`, `update_time`);
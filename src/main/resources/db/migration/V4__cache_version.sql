@@ -0,0 +1,14 @@
+-- ----------------------------
+-- 缓存失效日志，保存、删除时在同一事务中追加，各节点按序号轮询并清除本地缓存
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `cache_version`
+(
+    `id`          bigint(20)  NOT NULL AUTO_INCREMENT COMMENT '变更序号',
+    `cache_name`  varchar(64) NOT NULL COMMENT '缓存名称(实体名)',
+    `entity_key`  varchar(64) DEFAULT NULL COMMENT '变更的实体id，为空表示整个缓存',
+    `node_id`     varchar(64) DEFAULT NULL COMMENT '发出变更的节点',
+    `create_time` datetime    DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_create_time` (`create_time`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
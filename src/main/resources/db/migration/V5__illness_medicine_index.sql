@@ -0,0 +1,6 @@
+-- ----------------------------
+-- illness_medicine 按疾病、按药品批量加载关联，两个方向各建一个索引
+-- ----------------------------
+ALTER TABLE `illness_medicine`
+    ADD KEY `idx_illness_id` (`illness_id`, `medicine_id`),
+    ADD KEY `idx_medicine_id` (`medicine_id`, `illness_id`);
@@ -0,0 +1,19 @@
+-- ----------------------------
+-- 待发送邮件，请求线程只写入本表，后台线程批量发送并按指数退避重试
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `email_outbox`
+(
+    `id`                bigint(20)   NOT NULL AUTO_INCREMENT COMMENT '邮件id',
+    `to_address`        varchar(255) NOT NULL COMMENT '收件人',
+    `subject`           varchar(255) DEFAULT NULL COMMENT '标题',
+    `content`           mediumtext COMMENT '正文(HTML)',
+    `status`            tinyint(4)   NOT NULL DEFAULT 0 COMMENT '状态：0待发送 1发送中 2已发送 3发送失败',
+    `attempts`          int(11)      NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+    `next_attempt_time` datetime     DEFAULT CURRENT_TIMESTAMP COMMENT '下次尝试时间',
+    `last_error`        varchar(500) DEFAULT NULL COMMENT '最近一次失败原因',
+    `create_time`       datetime     DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time`       datetime     DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_status_next_attempt` (`status`, `next_attempt_time`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
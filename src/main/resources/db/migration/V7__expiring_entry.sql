@@ -0,0 +1,13 @@
+-- ----------------------------
+-- 带过期时间的键值，多节点共享邮箱验证码与发送频率计数
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `expiring_entry`
+(
+    `entry_key`   varchar(191) NOT NULL COMMENT '键，如验证码、发送频率计数',
+    `entry_value` varchar(255) DEFAULT NULL COMMENT '值',
+    `counter`     int(11)      NOT NULL DEFAULT 0 COMMENT '计数',
+    `expire_time` datetime     NOT NULL COMMENT '过期时间',
+    PRIMARY KEY (`entry_key`),
+    KEY `idx_expire_time` (`expire_time`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
@@ -0,0 +1,12 @@
+-- ----------------------------
+-- 上传文件按内容去重，相同内容只保存一份
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `upload_object`
+(
+    `sha256`      char(64)     NOT NULL COMMENT '内容的SHA-256',
+    `object_key`  varchar(255) NOT NULL COMMENT '存储中的对象名',
+    `size`        bigint(20)   NOT NULL COMMENT '字节数',
+    `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '首次上传时间',
+    PRIMARY KEY (`sha256`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
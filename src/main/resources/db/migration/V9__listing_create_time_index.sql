@@ -0,0 +1,9 @@
+-- ----------------------------
+-- illness、medicine 浏览列表按 (create_time, id) 倒序分页，深页码先在索引上定位第一条记录
+-- ----------------------------
+ALTER TABLE `illness`
+    ADD KEY `idx_create_time_id` (`create_time`, `id`),
+    ADD KEY `idx_kind_create_time_id` (`kind_id`, `create_time`, `id`);
+
+ALTER TABLE `medicine`
+    ADD KEY `idx_create_time_id` (`create_time`, `id`);
@@ -1,6 +1,60 @@
 SET NAMES utf8mb4;
 SET FOREIGN_KEY_CHECKS = 0;
 
+-- ----------------------------
+-- Table structure for cache_version
+-- ----------------------------
+DROP TABLE IF EXISTS `cache_version`;
+CREATE TABLE `cache_version`
+(
+    `id`          bigint(20)  NOT NULL AUTO_INCREMENT COMMENT '变更序号',
+    `cache_name`  varchar(64) NOT NULL COMMENT '缓存名称(实体名)',
+    `entity_key`  varchar(64) DEFAULT NULL COMMENT '变更的实体id，为空表示整个缓存',
+    `node_id`     varchar(64) DEFAULT NULL COMMENT '发出变更的节点',
+    `create_time` datetime    DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_create_time` (`create_time`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
+-- ----------------------------
+-- Table structure for email_outbox
+-- ----------------------------
+DROP TABLE IF EXISTS `email_outbox`;
+CREATE TABLE `email_outbox`
+(
+    `id`                bigint(20)   NOT NULL AUTO_INCREMENT COMMENT '邮件id',
+    `to_address`        varchar(255) NOT NULL COMMENT '收件人',
+    `subject`           varchar(255) DEFAULT NULL COMMENT '标题',
+    `content`           mediumtext COMMENT '正文(HTML)',
+    `status`            tinyint(4)   NOT NULL DEFAULT 0 COMMENT '状态：0待发送 1发送中 2已发送 3发送失败',
+    `attempts`          int(11)      NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+    `next_attempt_time` datetime     DEFAULT CURRENT_TIMESTAMP COMMENT '下次尝试时间',
+    `expire_time`       datetime     DEFAULT NULL COMMENT '过期时间，为空表示不过期',
+    `last_error`        varchar(500) DEFAULT NULL COMMENT '最近一次失败原因',
+    `create_time`       datetime     DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time`       datetime     DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_status_next_attempt` (`status`, `next_attempt_time`),
+    KEY `idx_status_update_time` (`status`, `update_time`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
+-- ----------------------------
+-- Table structure for expiring_entry
+-- ----------------------------
+DROP TABLE IF EXISTS `expiring_entry`;
+CREATE TABLE `expiring_entry`
+(
+    `entry_key`   varchar(191) NOT NULL COMMENT '键，如验证码、发送频率计数',
+    `entry_value` varchar(255) DEFAULT NULL COMMENT '值',
+    `counter`     int(11)      NOT NULL DEFAULT 0 COMMENT '计数',
+    `expire_time` datetime     NOT NULL COMMENT '过期时间',
+    PRIMARY KEY (`entry_key`),
+    KEY `idx_expire_time` (`expire_time`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
 -- ----------------------------
 -- Table structure for feedback
 -- ----------------------------
@@ -32,6 +86,37 @@ VALUES (7, '路人乙', '31952874@qq.com', '测试二号', '惆怅长岑长错
         '2024-03-26 14:24:20');
 COMMIT;
 
+-- ----------------------------
+-- Table structure for flyway_schema_history
+-- 按本脚本新建的库已包含 db/migration 下全部脚本的修改，以最新版本作为 Flyway 基线，新增迁移脚本时同步修改这里的版本号
+-- ----------------------------
+DROP TABLE IF EXISTS `flyway_schema_history`;
+CREATE TABLE `flyway_schema_history`
+(
+    `installed_rank` int(11)       NOT NULL,
+    `version`        varchar(50)            DEFAULT NULL,
+    `description`    varchar(200)  NOT NULL,
+    `type`           varchar(20)   NOT NULL,
+    `script`         varchar(1000) NOT NULL,
+    `checksum`       int(11)                DEFAULT NULL,
+    `installed_by`   varchar(100)  NOT NULL,
+    `installed_on`   timestamp     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `execution_time` int(11)       NOT NULL,
+    `success`        tinyint(1)    NOT NULL,
+    PRIMARY KEY (`installed_rank`),
+    KEY `flyway_schema_history_s_idx` (`success`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
+-- ----------------------------
+-- Records of flyway_schema_history
+-- ----------------------------
+BEGIN;
+INSERT INTO `flyway_schema_history` (`installed_rank`, `version`, `description`, `type`, `script`, `checksum`,
+                                     `installed_by`, `execution_time`, `success`)
+VALUES (1, '11', '<< Flyway Baseline >>', 'BASELINE', '<< Flyway Baseline >>', NULL, 'root', 0, 1);
+COMMIT;
+
 -- ----------------------------
 -- Table structure for history
 -- ----------------------------
@@ -44,7 +129,9 @@ CREATE TABLE `history`
     `operate_type` int(1)       DEFAULT NULL COMMENT '类型：1搜索，2科目，3药品',
     `create_time`  datetime     DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `update_time`  datetime     DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    PRIMARY KEY (`id`) USING BTREE
+    PRIMARY KEY (`id`) USING BTREE,
+    UNIQUE KEY `uk_user_keyword` (`user_id`, `keyword`),
+    KEY `idx_user_update_time` (`user_id`, `update_time`)
 ) ENGINE = InnoDB
   AUTO_INCREMENT = 160
   DEFAULT CHARSET = utf8mb4;
@@ -54,10 +141,6 @@ CREATE TABLE `history`
 -- ----------------------------
 BEGIN;
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (126, 4, '10,无', 1, '2024-03-26 16:09:34', '2024-03-26 16:09:34');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (127, 4, '10,无', 1, '2024-03-26 16:09:40', '2024-03-26 16:09:40');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (128, 4, '病毒性感冒', 2, '2024-03-26 16:09:48', '2024-03-26 16:09:48');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (129, 4, '10,无', 1, '2024-03-26 16:09:52', '2024-03-26 16:09:52');
@@ -66,50 +149,20 @@ VALUES (130, 4, '湿疹', 2, '2024-03-26 14:22:15', '2024-03-26 14:22:15');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (131, 4, '偏头痛', 2, '2024-03-26 14:22:49', '2024-03-26 14:22:49');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (132, 5, '7,无', 1, '2024-03-26 14:27:41', '2024-03-26 14:27:41');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (133, 5, '湿疹', 2, '2024-03-26 14:27:53', '2024-03-26 14:27:53');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (134, 5, '感冒', 2, '2024-03-26 14:28:08', '2024-03-26 14:28:08');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (135, 5, '17,无', 1, '2024-03-26 14:28:22', '2024-03-26 14:28:22');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (136, 5, '17,溃疡', 1, '2024-03-26 14:28:28', '2024-03-26 14:28:28');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (137, 5, '溃疡', 2, '2024-03-26 14:28:28', '2024-03-26 14:28:28');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (138, 5, '17,溃疡', 1, '2024-03-26 16:26:48', '2024-03-26 16:26:48');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (139, 5, '溃疡', 2, '2024-03-26 16:26:48', '2024-03-26 16:26:48');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (140, 5, '17,溃疡', 1, '2024-03-26 16:28:20', '2024-03-26 16:28:20');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (141, 5, '溃疡', 2, '2024-03-26 16:28:20', '2024-03-26 16:28:20');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (142, 5, '17,溃疡', 1, '2024-03-26 16:33:52', '2024-03-26 16:33:52');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (143, 5, '溃疡', 2, '2024-03-26 16:33:52', '2024-03-26 16:33:52');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (144, 5, '溃疡', 2, '2024-03-26 16:34:08', '2024-03-26 16:34:08');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (145, 5, '7,无', 1, '2024-03-26 16:37:57', '2024-03-26 16:37:57');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (146, 5, '9,无', 1, '2024-03-26 16:38:34', '2024-03-26 16:38:34');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (147, 5, '9,无', 1, '2024-03-26 16:41:59', '2024-03-26 16:41:59');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (148, 5, '9,无', 1, '2024-03-26 16:42:14', '2024-03-26 16:42:14');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (149, 5, '9,无', 1, '2024-03-26 16:42:45', '2024-03-26 16:42:45');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (150, 5, '9,无', 1, '2024-03-26 16:43:54', '2024-03-26 16:43:54');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (151, 5, '9,无', 1, '2024-03-26 16:44:26', '2024-03-26 16:44:26');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (152, 5, '9,无', 1, '2024-03-26 16:44:45', '2024-03-26 16:44:45');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
-VALUES (153, 5, '2,无', 1, '2024-03-26 16:44:51', '2024-03-26 16:44:51');
-INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (154, 5, '2,无', 1, '2024-03-26 16:45:46', '2024-03-26 16:45:46');
 INSERT INTO `history` (`id`, `user_id`, `keyword`, `operate_type`, `create_time`, `update_time`)
 VALUES (155, 5, '1', 3, '2024-03-26 15:34:34', '2024-03-26 15:34:34');
@@ -137,7 +190,9 @@ CREATE TABLE `illness`
     `special_symptom` mediumtext COMMENT '特殊症状',
     `create_time`     datetime     DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `update_time`     datetime     DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    PRIMARY KEY (`id`) USING BTREE
+    PRIMARY KEY (`id`) USING BTREE,
+    KEY `idx_create_time_id` (`create_time`, `id`),
+    KEY `idx_kind_create_time_id` (`kind_id`, `create_time`, `id`)
 ) ENGINE = InnoDB
   AUTO_INCREMENT = 14
   DEFAULT CHARSET = utf8mb4;
@@ -262,7 +317,9 @@ CREATE TABLE `illness_medicine`
     `medicine_id` int(1)   DEFAULT NULL COMMENT '药品id',
     `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    PRIMARY KEY (`id`) USING BTREE
+    PRIMARY KEY (`id`) USING BTREE,
+    KEY `idx_illness_id` (`illness_id`, `medicine_id`),
+    KEY `idx_medicine_id` (`medicine_id`, `illness_id`)
 ) ENGINE = InnoDB
   AUTO_INCREMENT = 21
   DEFAULT CHARSET = utf8mb4;
@@ -322,7 +379,8 @@ CREATE TABLE `medicine`
     `medicine_price`  decimal(10, 2) DEFAULT NULL COMMENT '药的价格',
     `create_time`     datetime       DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `update_time`     datetime       DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    PRIMARY KEY (`id`) USING BTREE
+    PRIMARY KEY (`id`) USING BTREE,
+    KEY `idx_create_time_id` (`create_time`, `id`)
 ) ENGINE = InnoDB
   AUTO_INCREMENT = 8
   DEFAULT CHARSET = utf8mb4;
@@ -401,7 +459,9 @@ CREATE TABLE `pageview`
     `id`         int(1) NOT NULL AUTO_INCREMENT COMMENT '主键id',
     `pageviews`  int(1)  DEFAULT NULL COMMENT '浏览量',
     `illness_id` int(11) DEFAULT NULL COMMENT '病的id',
-    PRIMARY KEY (`id`)
+    `visitor_sketch` blob DEFAULT NULL COMMENT '访客数 HyperLogLog 估计器',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_illness_id` (`illness_id`)
 ) ENGINE = InnoDB
   AUTO_INCREMENT = 15
   DEFAULT CHARSET = utf8mb4;
@@ -432,6 +492,21 @@ INSERT INTO `pageview` (`id`, `pageviews`, `illness_id`)
 VALUES (14, 1, 9);
 COMMIT;
 
+-- ----------------------------
+-- Table structure for upload_object
+-- ----------------------------
+DROP TABLE IF EXISTS `upload_object`;
+CREATE TABLE `upload_object`
+(
+    `sha256`      char(64)     NOT NULL COMMENT '内容的SHA-256',
+    `backend`     varchar(100) NOT NULL COMMENT '保存对象的存储，如 oss:存储桶名',
+    `object_key`  varchar(255) NOT NULL COMMENT '存储中的对象名',
+    `size`        bigint(20)   NOT NULL COMMENT '字节数',
+    `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '首次上传时间',
+    PRIMARY KEY (`sha256`, `backend`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
 -- ----------------------------
 -- Table structure for user
 -- ----------------------------
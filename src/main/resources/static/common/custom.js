@@ -593,6 +593,47 @@ function searchGlobalSelect() {
 }
 
 
+// 搜索框输入联想：带 data-suggest 属性的输入框，停止输入 150ms 后按前缀请求联想词填入对应的 datalist
+$(function () {
+    $('input[data-suggest]').each(function () {
+        let input = $(this);
+        let list = $('#' + input.data('suggest'));
+        let timer = null;
+        let last = '';
+        input.on('input', function () {
+            clearTimeout(timer);
+            timer = setTimeout(function () {
+                let prefix = input.val().trim();
+                if (prefix === last) {
+                    return;
+                }
+                last = prefix;
+                if (prefix === '') {
+                    list.empty();
+                    return;
+                }
+                $.ajax({
+                    type: "GET",
+                    url: "suggest",
+                    data: {
+                        prefix: prefix,
+                    },
+                    dataType: "json",
+                    success: function (data) {
+                        if (data['code'] !== 'SUCCESS' || input.val().trim() !== prefix) {
+                            return;
+                        }
+                        list.empty();
+                        data['data'].forEach(function (item) {
+                            list.append($('<option>').val(item['text']));
+                        });
+                    }
+                });
+            }, 150);
+        });
+    });
+});
+
 function searchMedicine() {
     let content = $("#search-medicine").val().trim();
     if (content == "") {
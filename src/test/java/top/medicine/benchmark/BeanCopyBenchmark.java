@@ -0,0 +1,50 @@
+package top.medicine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import top.medicine.entity.Medicine;
+import top.medicine.utils.BeanUtil;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description 多线程下复制实体的吞吐量：BeanUtil.copy 与 hutool 的 BeanUtil.copyProperties
+ * 运行：mvn test-compile 后以测试类路径执行本类的 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class BeanCopyBenchmark {
+
+    private final Medicine medicine = Medicine.builder()
+            .id(1)
+            .medicineName("布洛芬缓释胶囊")
+            .keyword("止痛 退烧")
+            .medicineEffect("用于缓解轻至中度疼痛")
+            .medicineType(1)
+            .medicinePrice(BigDecimal.valueOf(25.8))
+            .createTime(new Date())
+            .build();
+
+    @Benchmark
+    public Medicine beanUtilCopy() throws Exception {
+        return BeanUtil.copy(medicine, Medicine.class);
+    }
+
+    @Benchmark
+    public Medicine hutoolCopyProperties() {
+        return cn.hutool.core.bean.BeanUtil.copyProperties(medicine, Medicine.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BeanCopyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
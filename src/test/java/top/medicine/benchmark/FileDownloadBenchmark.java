@@ -0,0 +1,133 @@
+package top.medicine.benchmark;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import top.medicine.component.LocalStorage;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * @description 通过内嵌 Tomcat 下载本地文件的吞吐量：LocalStorage 的零拷贝发送与读成字节数组再写出
+ * 32KB 对应头像，512KB 对应药品图片
+ * 运行：mvn test-compile 后以测试类路径执行本类的 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(4)
+@Fork(1)
+public class FileDownloadBenchmark {
+
+    @Param({"32768", "524288"})
+    private int fileSize;
+
+    private Path root;
+
+    private Tomcat tomcat;
+
+    private HttpClient httpClient;
+
+    private URI zeroCopyUri;
+
+    private URI byteArrayUri;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // 关闭调试日志
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        root = Files.createTempDirectory("download-benchmark");
+        LocalStorage localStorage = new LocalStorage();
+        Field field = LocalStorage.class.getDeclaredField("root");
+        field.setAccessible(true);
+        field.set(localStorage, root.resolve("files").toString());
+        localStorage.init();
+        String key = "1/image.png";
+        localStorage.put(key, new ByteArrayInputStream(new byte[fileSize]), fileSize);
+        Path path = localStorage.resolve(key);
+
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(root.resolve("tomcat").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        tomcat.setConnector(connector);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "zeroCopy", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                localStorage.serve(key, request, response);
+            }
+        });
+        Tomcat.addServlet(context, "byteArray", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                byte[] bytes = Files.readAllBytes(path);
+                response.setContentType("image/png");
+                response.setContentLength(bytes.length);
+                response.getOutputStream().write(bytes);
+            }
+        });
+        context.addServletMappingDecoded("/zero-copy", "zeroCopy");
+        context.addServletMappingDecoded("/byte-array", "byteArray");
+        tomcat.start();
+
+        String base = "http://127.0.0.1:" + connector.getLocalPort();
+        zeroCopyUri = URI.create(base + "/zero-copy");
+        byteArrayUri = URI.create(base + "/byte-array");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws LifecycleException, IOException {
+        tomcat.stop();
+        tomcat.destroy();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int zeroCopy() throws Exception {
+        return download(zeroCopyUri);
+    }
+
+    @Benchmark
+    public int byteArray() throws Exception {
+        return download(byteArrayUri);
+    }
+
+    private int download(URI uri) throws Exception {
+        HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("下载失败: " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FileDownloadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package top.medicine.benchmark;
+
+import cn.hutool.core.util.IdUtil;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.CannedAccessControlList;
+import com.aliyun.oss.model.PutObjectRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockMultipartFile;
+import top.medicine.component.FakeOssServer;
+import top.medicine.component.OssClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @description 上传到本地 OSS 服务的吞吐量与连接数：原来每次上传新建客户端的做法与共用客户端、分片并行上传
+ * 本地服务每个请求延迟2毫秒模拟网络往返，每轮结束时输出平均每次上传建立的连接数
+ * 运行：mvn test-compile 后以测试类路径执行本类的 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(4)
+@Fork(1)
+public class OssUploadBenchmark {
+
+    private static final String BUCKET = "bench-bucket";
+
+    // 64KB 走简单上传，32MB 走分片上传
+    @Param({"65536", "33554432"})
+    private int fileSize;
+
+    private FakeOssServer ossServer;
+
+    private OssClient ossClient;
+
+    private MockMultipartFile file;
+
+    private final AtomicLong uploads = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // 关闭 SDK 与 HttpClient 的调试日志
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        ossServer = new FakeOssServer(true, 2);
+        ossServer.discardContents();
+        ossClient = new OssClient();
+        setField("bucketName", BUCKET);
+        setField("endPoint", ossServer.getEndpoint());
+        setField("accessKeyId", "bench");
+        setField("accessKeySecret", "bench");
+        ossClient.init();
+        file = new MockMultipartFile("file", "scan.pdf", "application/pdf", new byte[fileSize]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%d uploads, %d connections, %.2f connections per upload%n",
+                uploads.get(), ossServer.getConnections(), (double) ossServer.getConnections() / uploads.get());
+        ossClient.shutdown();
+        ossServer.close();
+    }
+
+    /**
+     * 原来的上传：每次新建客户端且不关闭，检查存储桶、整个文件一次上传、再设置权限
+     */
+    @Benchmark
+    public String perRequestClient() throws IOException {
+        uploads.incrementAndGet();
+        OSSClient client = new OSSClient(ossServer.getEndpoint(), "bench", "bench");
+        client.doesBucketExist(BUCKET);
+        String key = "bench/" + IdUtil.simpleUUID() + ".pdf";
+        client.putObject(new PutObjectRequest(BUCKET, key, file.getInputStream()));
+        client.setBucketAcl(BUCKET, CannedAccessControlList.PublicRead);
+        return key;
+    }
+
+    @Benchmark
+    public String sharedClient() throws IOException {
+        uploads.incrementAndGet();
+        String key = "bench/" + IdUtil.simpleUUID() + ".pdf";
+        try (InputStream in = file.getInputStream()) {
+            ossClient.put(key, in, file.getSize());
+        }
+        return ossClient.url(key);
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        Field field = OssClient.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(ossClient, value);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OssUploadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,53 @@
+package top.medicine.benchmark;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import top.medicine.entity.User;
+import top.medicine.utils.Assert;
+import top.medicine.utils.BeanUtil;
+import top.medicine.utils.EntityMeta;
+import top.medicine.utils.VariableNameUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description 构造实体查询条件的耗时对比：bean2Map + humpToLine 与预解析的 EntityMeta
+ * 运行：mvn test-compile 后以测试类路径执行本类的 main 方法
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuildBenchmark {
+
+    // 登录时的查询条件：账号与密码
+    private final User login = User.builder().userAccount("admin").userPwd("e10adc3949ba59abbe56e057f20f883e").build();
+
+    @Benchmark
+    public QueryWrapper<User> bean2Map() {
+        QueryWrapper<User> wrapper = new QueryWrapper();
+        Map<String, Object> bean2Map = BeanUtil.bean2Map(login);
+        for (String key : bean2Map.keySet()) {
+            if (Assert.isEmpty(bean2Map.get(key))) {
+                continue;
+            }
+            wrapper.eq(VariableNameUtils.humpToLine(key), bean2Map.get(key));
+        }
+        return wrapper;
+    }
+
+    @Benchmark
+    public QueryWrapper<User> entityMeta() {
+        return EntityMeta.of(User.class).toWrapper(login);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(QueryBuildBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,201 @@
+package top.medicine.component;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import top.medicine.dao.*;
+import top.medicine.entity.CacheVersion;
+import top.medicine.entity.Video;
+import top.medicine.service.VideoService;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 同一个JVM中启动两个应用上下文，共享同一份模拟的数据库，模拟两个节点
+ */
+public class CacheInvalidatorTest {
+
+    // 模拟的 cache_version 表，已提交的行
+    private final List<CacheVersion> versions = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong sequence = new AtomicLong();
+
+    // 模拟的 video 表
+    private final Map<Integer, Video> videos = new HashMap<>();
+    private final AtomicInteger videoReads = new AtomicInteger();
+
+    private AnnotationConfigApplicationContext nodeA;
+    private AnnotationConfigApplicationContext nodeB;
+
+    @Before
+    public void setUp() {
+        videos.put(1, Video.builder().id(1).title("洗手").build());
+        videos.put(2, Video.builder().id(2).title("口罩").build());
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @After
+    public void tearDown() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    public void testRemoteNodeEvictsChangedKey() {
+        VideoService serviceA = nodeA.getBean(VideoService.class);
+        VideoService serviceB = nodeB.getBean(VideoService.class);
+        assertEquals("洗手", serviceB.get(1).getTitle());
+        assertEquals("口罩", serviceB.get(2).getTitle());
+
+        // 节点A修改后，节点B轮询之前仍读到缓存
+        serviceA.save(Video.builder().id(1).title("七步洗手法").build());
+        assertEquals("洗手", serviceB.get(1).getTitle());
+
+        nodeB.getBean(CacheInvalidator.class).poll();
+        int reads = videoReads.get();
+        assertEquals("七步洗手法", serviceB.get(1).getTitle());
+        assertEquals("口罩", serviceB.get(2).getTitle());
+        assertEquals(reads + 1, videoReads.get());
+    }
+
+    @Test
+    public void testOwnChangesAreNotDispatched() {
+        VideoService serviceA = nodeA.getBean(VideoService.class);
+        serviceA.get(2);
+        serviceA.save(Video.builder().id(1).title("七步洗手法").build());
+
+        // 自己发出的变更已在本地处理，轮询不应再清掉其他缓存
+        nodeA.getBean(CacheInvalidator.class).poll();
+        int reads = videoReads.get();
+        serviceA.get(2);
+        assertEquals(reads, videoReads.get());
+    }
+
+    @Test
+    public void testGapWaitsForLateCommit() {
+        VideoService serviceB = nodeB.getBean(VideoService.class);
+        CacheInvalidator invalidatorB = nodeB.getBean(CacheInvalidator.class);
+        serviceB.get(1);
+        serviceB.get(2);
+
+        // 一个事务先拿到序号但尚未提交，后拿到序号的事务先提交
+        long late = sequence.incrementAndGet();
+        nodeA.getBean(VideoService.class).save(Video.builder().id(2).title("戴口罩").build());
+        invalidatorB.poll();
+        assertEquals("戴口罩", serviceB.get(2).getTitle());
+
+        // 晚提交的变更仍然能被处理
+        videos.get(1).setTitle("七步洗手法");
+        versions.add(CacheVersion.builder().id(late).cacheName("video").entityKey("1").nodeId("other").build());
+        invalidatorB.poll();
+        assertEquals("七步洗手法", serviceB.get(1).getTitle());
+        assertEquals(sequence.get(), floor(invalidatorB));
+    }
+
+    @Test
+    public void testGapSkippedAfterGrace() {
+        CacheInvalidator invalidatorB = nodeB.getBean(CacheInvalidator.class);
+
+        // 回滚的事务留下永久的空洞，超过等待时间(测试中为0)后跳过
+        sequence.incrementAndGet();
+        nodeA.getBean(VideoService.class).delete(2);
+        invalidatorB.poll();
+        invalidatorB.poll();
+        assertEquals(sequence.get(), floor(invalidatorB));
+        assertNull(nodeB.getBean(VideoService.class).get(2));
+    }
+
+    private long floor(CacheInvalidator invalidator) {
+        try {
+            java.lang.reflect.Field field = CacheInvalidator.class.getDeclaredField("floor");
+            field.setAccessible(true);
+            return (long) field.get(invalidator);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private AnnotationConfigApplicationContext startNode() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                Collections.singletonMap("cache.invalidation.grace", "0")));
+        context.registerBean(CacheVersionDao.class, this::cacheVersionDao);
+        context.registerBean(VideoDao.class, this::videoDao);
+        for (Class<?> dao : Arrays.asList(UserDao.class, HistoryDao.class, IllnessDao.class, IllnessKindDao.class,
+                IllnessMedicineDao.class, MedicineDao.class, PageviewDao.class)) {
+            registerStub(context, dao);
+        }
+        context.register(CacheInvalidator.class, VideoService.class);
+        context.refresh();
+        return context;
+    }
+
+    private <D> void registerStub(AnnotationConfigApplicationContext context, Class<D> type) {
+        context.registerBean(type, () -> stub(type, (method, args) -> null));
+    }
+
+    private CacheVersionDao cacheVersionDao() {
+        return stub(CacheVersionDao.class, (method, args) -> {
+            switch (method) {
+                case "insert":
+                    CacheVersion version = (CacheVersion) args[0];
+                    version.setId(sequence.incrementAndGet());
+                    versions.add(version);
+                    return 1;
+                case "selectAfter":
+                    synchronized (versions) {
+                        return versions.stream()
+                                .filter(v -> v.getId() > (long) args[0])
+                                .sorted(Comparator.comparing(CacheVersion::getId))
+                                .limit((int) args[1])
+                                .collect(Collectors.toList());
+                    }
+                case "selectMaxId":
+                    return sequence.get();
+                default:
+                    return 0;
+            }
+        });
+    }
+
+    private VideoDao videoDao() {
+        return stub(VideoDao.class, (method, args) -> {
+            switch (method) {
+                case "selectById":
+                    videoReads.incrementAndGet();
+                    Video video = videos.get((Integer) Integer.valueOf(args[0].toString()));
+                    return video == null ? null : Video.builder().id(video.getId()).title(video.getTitle()).build();
+                case "updateById":
+                    Video update = (Video) args[0];
+                    videos.put(update.getId(), update);
+                    return 1;
+                case "deleteById":
+                    return videos.remove(Integer.valueOf(args[0].toString())) == null ? 0 : 1;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <D> D stub(Class<D> type, Handler handler) {
+        return (D) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.getName().equals("toString") ? type.getSimpleName() : method.invoke(handler, args);
+            }
+            return handler.handle(method.getName(), args);
+        });
+    }
+}
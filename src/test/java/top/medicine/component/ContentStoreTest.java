@@ -0,0 +1,159 @@
+package top.medicine.component;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import top.medicine.dao.UploadObjectDao;
+import top.medicine.entity.UploadObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+@SpringBootTest
+public class ContentStoreTest {
+
+    // "abc" 的 SHA-256
+    private static final String ABC_SHA256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    private ContentStore contentStore;
+    private UploadObjectDao uploadObjectDao;
+    private MemoryStorage storage;
+
+    // 已写入的去重记录
+    private final Map<String, UploadObject> rows = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        // 创建模拟对象
+        uploadObjectDao = createMock(UploadObjectDao.class);
+        storage = new MemoryStorage();
+
+        // 创建被测试对象
+        contentStore = new ContentStore();
+        setField(contentStore, "objectStorage", storage);
+        setField(contentStore, "uploadObjectDao", uploadObjectDao);
+
+        // 设置模拟行为：用内存表代替 upload_object，主键为 (sha256, backend)
+        expect(uploadObjectDao.selectByHash(anyString(), anyString()))
+                .andAnswer(() -> rows.get(getCurrentArguments()[0] + "@" + getCurrentArguments()[1])).anyTimes();
+        expect(uploadObjectDao.insertIgnore(anyObject(UploadObject.class))).andAnswer(() -> {
+            UploadObject row = (UploadObject) getCurrentArguments()[0];
+            return rows.putIfAbsent(row.getSha256() + "@" + row.getBackend(), row) == null ? 1 : 0;
+        }).anyTimes();
+        replay(uploadObjectDao);
+    }
+
+    // 辅助方法：通过反射设置私有字段
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            Field field = ContentStore.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("依赖注入失败", e);
+        }
+    }
+
+    @Test
+    public void testUpload_KeyIsContentHash() throws IOException {
+        // 执行测试
+        String url = contentStore.upload(new MockMultipartFile("file", "a.png", "image/png", "abc".getBytes()));
+
+        // 验证结果：按哈希前两位分目录
+        String key = "ba/" + ABC_SHA256 + ".png";
+        assertEquals("mem://" + key, url);
+        assertArrayEquals("abc".getBytes(), storage.objects.get(key));
+        assertEquals(key, rows.get(ABC_SHA256 + "@mem").getObjectKey());
+        assertEquals(3L, (long) rows.get(ABC_SHA256 + "@mem").getSize());
+    }
+
+    @Test
+    public void testUpload_DuplicateSkipsWrite() throws IOException {
+        // 执行测试：同样的内容换个文件名再上传
+        String first = contentStore.upload(new MockMultipartFile("file", "a.png", "image/png", "abc".getBytes()));
+        String second = contentStore.upload(new MockMultipartFile("file", "b.jpg", "image/jpeg", "abc".getBytes()));
+
+        // 验证结果：只写入一次，返回已有地址
+        assertEquals(first, second);
+        assertEquals(1, storage.puts);
+    }
+
+    @Test
+    public void testUpload_DifferentContentStoredSeparately() throws IOException {
+        // 执行测试
+        String first = contentStore.upload(new MockMultipartFile("file", "a.png", "image/png", "abc".getBytes()));
+        String second = contentStore.upload(new MockMultipartFile("file", "a.png", "image/png", "abd".getBytes()));
+
+        // 验证结果
+        assertNotEquals(first, second);
+        assertEquals(2, storage.puts);
+        assertEquals(2, rows.size());
+    }
+
+    @Test
+    public void testUpload_OtherBackendStoredAgain() throws IOException {
+        contentStore.upload(new MockMultipartFile("file", "a.png", "image/png", "abc".getBytes()));
+
+        // 切换存储后，另一个存储中的记录不能复用
+        MemoryStorage other = new MemoryStorage();
+        other.backend = "mem2";
+        setField(contentStore, "objectStorage", other);
+        contentStore.upload(new MockMultipartFile("file", "a.png", "image/png", "abc".getBytes()));
+
+        // 验证结果
+        assertEquals(1, other.puts);
+        assertEquals(2, rows.size());
+    }
+
+    @Test
+    public void testUpload_NullFile() throws IOException {
+        assertNull(contentStore.upload(null));
+        assertEquals(0, storage.puts);
+    }
+
+    @Test
+    public void testUpload_RejectsScriptableTypes() throws IOException {
+        for (String name : new String[]{"a.html", "a.svg", "a.SVG", "noextension"}) {
+            try {
+                contentStore.upload(new MockMultipartFile("file", name, "text/html", "<script></script>".getBytes()));
+                fail("不允许上传 " + name);
+            } catch (IllegalArgumentException e) {
+                // 预期的异常
+            }
+        }
+        assertEquals(0, storage.puts);
+        assertTrue(ContentStore.accepts("a.JPG"));
+        assertTrue(ContentStore.accepts("a.mp4"));
+    }
+
+    // 内存存储，记录写入次数
+    private static class MemoryStorage implements ObjectStorage {
+
+        private final Map<String, byte[]> objects = new HashMap<>();
+        private int puts;
+        private String backend = "mem";
+
+        @Override
+        public void put(String key, InputStream in, long size) throws IOException {
+            puts++;
+            objects.put(key, in.readAllBytes());
+        }
+
+        @Override
+        public String url(String key) {
+            return "mem://" + key;
+        }
+
+        @Override
+        public String backend() {
+            return backend;
+        }
+    }
+}
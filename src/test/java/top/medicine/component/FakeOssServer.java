@@ -0,0 +1,361 @@
+package top.medicine.component;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 测试用的本地 OSS 服务，相当于绑定了单个存储桶的自定义域名(CNAME)，实现上传需要的最少接口：
+ * 存储桶 ACL 查询与设置、创建存储桶、简单上传、分片上传(初始化、上传分片、完成、取消)以及下载
+ * 直接在 socket 上实现 HTTP/1.1 长连接，记录客户端建立的连接数与各类请求数，可为每个请求增加固定延迟模拟网络往返
+ */
+public class FakeOssServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "fake-oss");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 每个请求的额外延迟(毫秒)
+    private final long latency;
+
+    private volatile boolean bucketExists;
+
+    // 对象名 -> 对象内容
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    // uploadId -> 分片号 -> 分片内容
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    // 请求类型 -> 次数
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlightParts = new AtomicInteger();
+
+    private final AtomicInteger maxInFlightParts = new AtomicInteger();
+
+    // 始终失败的分片号
+    private volatile int failingPart;
+
+    // 只记录对象名，不保存内容，压测时避免占用内存
+    private volatile boolean discardContents;
+
+    private final AtomicLong uploadIds = new AtomicLong();
+
+    public FakeOssServer(boolean bucketExists, long latency) throws IOException {
+        this.bucketExists = bucketExists;
+        this.latency = latency;
+        serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        executor.execute(this::accept);
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public int getRequests(String type) {
+        AtomicInteger count = requests.get(type);
+        return count == null ? 0 : count.get();
+    }
+
+    public int getMaxInFlightParts() {
+        return maxInFlightParts.get();
+    }
+
+    public byte[] getObject(String key) {
+        return objects.get(key);
+    }
+
+    public int getObjectCount() {
+        return objects.size();
+    }
+
+    public int getOpenUploads() {
+        return uploads.size();
+    }
+
+    public void failPart(int partNumber) {
+        failingPart = partNumber;
+    }
+
+    public void discardContents() {
+        discardContents = true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    // 同一连接上依次处理多个请求，直到客户端关闭
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             InputStream in = new BufferedInputStream(s.getInputStream());
+             OutputStream out = new BufferedOutputStream(s.getOutputStream())) {
+            Exchange exchange;
+            while ((exchange = Exchange.read(in)) != null) {
+                handle(exchange);
+                exchange.write(out);
+            }
+        } catch (IOException e) {
+            // 客户端断开
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(Exchange ex) throws InterruptedException {
+        if (latency > 0) {
+            TimeUnit.MILLISECONDS.sleep(latency);
+        }
+        byte[] body = ex.body;
+        String method = ex.method;
+        String key = ex.path.length() > 1 ? ex.path.substring(1) : null;
+        Map<String, String> query = ex.query;
+        {
+
+            if (key == null) {
+                handleBucket(ex, method, query);
+            } else if (query.containsKey("uploads")) {
+                count("initiateMultipart");
+                String uploadId = "upload-" + uploadIds.incrementAndGet();
+                uploads.put(uploadId, new ConcurrentSkipListMap<>());
+                xml(ex, 200, "<InitiateMultipartUploadResult><Bucket>fake</Bucket><Key>" + key
+                        + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+            } else if (query.containsKey("partNumber")) {
+                uploadPart(ex, query, body);
+            } else if (query.containsKey("uploadId") && "POST".equals(method)) {
+                count("completeMultipart");
+                Map<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+                int size = parts.values().stream().mapToInt(p -> p.length).sum();
+                byte[] object = new byte[size];
+                int offset = 0;
+                for (byte[] part : parts.values()) {
+                    System.arraycopy(part, 0, object, offset, part.length);
+                    offset += part.length;
+                }
+                objects.put(key, discardContents ? new byte[0] : object);
+                xml(ex, 200, "<CompleteMultipartUploadResult><Location>" + key + "</Location><Bucket>fake</Bucket><Key>" + key + "</Key><ETag>\"" + md5(object) + "\"</ETag></CompleteMultipartUploadResult>");
+            } else if (query.containsKey("uploadId") && "DELETE".equals(method)) {
+                count("abortMultipart");
+                uploads.remove(query.get("uploadId"));
+                empty(ex, 204, null);
+            } else if ("PUT".equals(method)) {
+                count("putObject");
+                objects.put(key, discardContents ? new byte[0] : body);
+                empty(ex, 200, md5(body));
+            } else if ("GET".equals(method) && objects.containsKey(key)) {
+                ex.respond(200, objects.get(key));
+            } else {
+                error(ex, 404, "NoSuchKey");
+            }
+        }
+    }
+
+    private void handleBucket(Exchange ex, String method, Map<String, String> query) {
+        if (query.containsKey("acl") && "GET".equals(method)) {
+            count("getBucketAcl");
+            if (!bucketExists) {
+                error(ex, 404, "NoSuchBucket");
+                return;
+            }
+            xml(ex, 200, "<AccessControlPolicy><Owner><ID>fake</ID><DisplayName>fake</DisplayName></Owner>"
+                    + "<AccessControlList><Grant>public-read</Grant></AccessControlList></AccessControlPolicy>");
+        } else if ("PUT".equals(method)) {
+            // 带 ACL 创建存储桶与设置 ACL 的请求相同，按存储桶是否存在区分
+            count(bucketExists ? "setBucketAcl" : "createBucket");
+            bucketExists = true;
+            empty(ex, 200, null);
+        } else {
+            error(ex, 400, "NotImplemented");
+        }
+    }
+
+    private void uploadPart(Exchange ex, Map<String, String> query, byte[] body) throws InterruptedException {
+        count("uploadPart");
+        int inFlight = inFlightParts.incrementAndGet();
+        maxInFlightParts.accumulateAndGet(inFlight, Math::max);
+        try {
+            // 让并行上传的分片有机会重叠
+            TimeUnit.MILLISECONDS.sleep(5);
+            int partNumber = Integer.parseInt(query.get("partNumber"));
+            if (partNumber == failingPart) {
+                error(ex, 403, "AccessDenied");
+                return;
+            }
+            Map<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+            if (parts == null) {
+                error(ex, 404, "NoSuchUpload");
+                return;
+            }
+            parts.put(partNumber, discardContents ? new byte[0] : body);
+            empty(ex, 200, md5(body));
+        } finally {
+            inFlightParts.decrementAndGet();
+        }
+    }
+
+    private void count(String type) {
+        requests.computeIfAbsent(type, t -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static void xml(Exchange ex, int status, String xml) {
+        ex.responseHeaders.put("Content-Type", "application/xml");
+        ex.respond(status, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void empty(Exchange ex, int status, String etag) {
+        if (etag != null) {
+            ex.responseHeaders.put("ETag", "\"" + etag + "\"");
+        }
+        ex.respond(status, new byte[0]);
+    }
+
+    private static void error(Exchange ex, int status, String code) {
+        xml(ex, status, "<Error><Code>" + code + "</Code><Message>" + code + "</Message>"
+                + "<RequestId>fake</RequestId><HostId>127.0.0.1</HostId></Error>");
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                params.put(eq < 0 ? pair : pair.substring(0, eq), eq < 0 ? "" : pair.substring(eq + 1));
+            }
+        }
+        return params;
+    }
+
+    private static String md5(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(bytes)).toUpperCase();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 一次 HTTP 请求与响应
+     */
+    private static class Exchange {
+
+        private String method;
+
+        private String path;
+
+        private Map<String, String> query;
+
+        private byte[] body;
+
+        private int status;
+
+        private final Map<String, String> responseHeaders = new LinkedHashMap<>();
+
+        private byte[] responseBody;
+
+        // 连接关闭时返回 null
+        private static Exchange read(InputStream in) throws IOException {
+            String requestLine = readLine(in);
+            while (requestLine != null && requestLine.isEmpty()) {
+                requestLine = readLine(in);
+            }
+            if (requestLine == null) {
+                return null;
+            }
+            Exchange exchange = new Exchange();
+            String[] parts = requestLine.split(" ");
+            exchange.method = parts[0];
+            int q = parts[1].indexOf('?');
+            exchange.path = q < 0 ? parts[1] : parts[1].substring(0, q);
+            exchange.query = parseQuery(q < 0 ? null : parts[1].substring(q + 1));
+            Map<String, String> headers = new HashMap<>();
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+            }
+            if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                int size;
+                while ((size = Integer.parseInt(readLine(in).split(";")[0].trim(), 16)) > 0) {
+                    body.write(in.readNBytes(size));
+                    readLine(in);
+                }
+                // 跳过 trailer
+                while ((line = readLine(in)) != null && !line.isEmpty()) {
+                    // 忽略
+                }
+                exchange.body = body.toByteArray();
+            } else {
+                exchange.body = in.readNBytes(Integer.parseInt(headers.getOrDefault("content-length", "0")));
+            }
+            return exchange;
+        }
+
+        private void respond(int status, byte[] body) {
+            this.status = status;
+            this.responseBody = body;
+        }
+
+        private void write(OutputStream out) throws IOException {
+            StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append(" X\r\n");
+            responseHeaders.put("x-oss-request-id", "fake");
+            responseHeaders.put("Content-Length", String.valueOf(responseBody.length));
+            responseHeaders.forEach((name, value) -> head.append(name).append(": ").append(value).append("\r\n"));
+            head.append("\r\n");
+            out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+            out.write(responseBody);
+            out.flush();
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1 && c != '\n') {
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return c == -1 && line.length() == 0 ? null : line.toString();
+        }
+    }
+}
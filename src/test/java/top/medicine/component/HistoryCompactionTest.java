@@ -0,0 +1,67 @@
+package top.medicine.component;
+
+import org.junit.Before;
+import org.junit.Test;
+import top.medicine.dao.HistoryDao;
+import top.medicine.entity.History;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class HistoryCompactionTest {
+
+    private HistoryCompaction historyCompaction;
+    private HistoryDao historyDao;
+
+    @Before
+    public void setUp() {
+        historyDao = createMock(HistoryDao.class);
+        historyCompaction = new HistoryCompaction();
+        setField("historyDao", historyDao);
+        setField("keep", 20);
+        setField("batchSize", 100);
+    }
+
+    // 辅助方法：通过反射设置字段
+    private void setField(String fieldName, Object value) {
+        try {
+            Field field = HistoryCompaction.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(historyCompaction, value);
+        } catch (Exception e) {
+            throw new RuntimeException("依赖注入失败", e);
+        }
+    }
+
+    @Test
+    public void testCompact_DeletesInBoundedBatches() {
+        Date boundaryTime = new Date();
+        History boundary = History.builder().id(900).userId(1).updateTime(boundaryTime).build();
+
+        // 设置模拟行为：用户1有250条旧记录，分三批删除；用户2的记录刚好被并发清理
+        expect(historyDao.selectUsersOver(20)).andReturn(Arrays.asList(1, 2));
+        expect(historyDao.selectNth(1, 19)).andReturn(boundary);
+        expect(historyDao.deleteOlder(1, boundaryTime, 900, 100)).andReturn(100).times(2);
+        expect(historyDao.deleteOlder(1, boundaryTime, 900, 100)).andReturn(50);
+        expect(historyDao.selectNth(2, 19)).andReturn(null);
+        replay(historyDao);
+
+        assertEquals(250, historyCompaction.compact());
+        verify(historyDao);
+    }
+
+    @Test
+    public void testCompact_NeverKeepsFewerThanRecentSize() {
+        setField("keep", 3);
+        expect(historyDao.selectUsersOver(RecentHistory.SIZE)).andReturn(Collections.emptyList());
+        replay(historyDao);
+
+        assertEquals(0, historyCompaction.compact());
+        verify(historyDao);
+    }
+}
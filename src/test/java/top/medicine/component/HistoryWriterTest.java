@@ -0,0 +1,130 @@
+package top.medicine.component;
+
+import org.junit.Before;
+import org.junit.Test;
+import top.medicine.dao.HistoryDao;
+import top.medicine.entity.History;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class HistoryWriterTest {
+
+    private HistoryWriter historyWriter;
+    private HistoryDao historyDao;
+
+    // 每次批量写入的条数
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        historyDao = createMock(HistoryDao.class);
+        historyWriter = new HistoryWriter();
+        setField("historyDao", historyDao);
+    }
+
+    // 辅助方法：通过反射设置字段
+    private void setField(String fieldName, Object value) {
+        try {
+            Field field = HistoryWriter.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(historyWriter, value);
+        } catch (Exception e) {
+            throw new RuntimeException("依赖注入失败", e);
+        }
+    }
+
+    private void recordBatches(CountDownLatch written) {
+        expect(historyDao.upsertBatch(anyObject(List.class))).andAnswer(() -> {
+            int size = ((List<?>) getCurrentArguments()[0]).size();
+            batches.add(size);
+            for (int i = 0; i < size; i++) {
+                written.countDown();
+            }
+            return size;
+        }).anyTimes();
+        replay(historyDao);
+    }
+
+    private static History history(int i) {
+        return History.builder().userId(1).operateType(2).keyword("感冒" + i).build();
+    }
+
+    @Test
+    public void testOffer_WritesInMultiRowBatches() throws Exception {
+        CountDownLatch written = new CountDownLatch(450);
+        recordBatches(written);
+        setField("batchSize", 100);
+        setField("flushInterval", 200L);
+        historyWriter.start();
+
+        for (int i = 0; i < 450; i++) {
+            assertTrue(historyWriter.offer(history(i)));
+        }
+
+        // 验证结果：450条最多拆成5批，每批不超过100条
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertTrue(batches.toString(), batches.size() <= 5 + 1);
+        assertTrue(batches.stream().allMatch(size -> size <= 100));
+        historyWriter.stop();
+        verify(historyDao);
+    }
+
+    @Test
+    public void testOffer_DropsWhenQueueFull() throws Exception {
+        // 设置模拟行为：第一次写入阻塞，期间队列被写满
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        expect(historyDao.upsertBatch(anyObject(List.class))).andAnswer(() -> {
+            blocked.countDown();
+            release.await();
+            return 1;
+        });
+        expect(historyDao.upsertBatch(anyObject(List.class))).andReturn(5).anyTimes();
+        replay(historyDao);
+        setField("capacity", 5);
+        setField("batchSize", 1);
+        historyWriter.start();
+
+        historyWriter.offer(history(0));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        int accepted = 0;
+        for (int i = 1; i <= 10; i++) {
+            if (historyWriter.offer(history(i))) {
+                accepted++;
+            }
+        }
+
+        // 验证结果：不阻塞，多出的记录被丢弃并计数
+        assertEquals(5, accepted);
+        assertEquals(5, historyWriter.getDropped());
+        release.countDown();
+        historyWriter.stop();
+        assertEquals(0, historyWriter.getQueueSize());
+    }
+
+    @Test
+    public void testStop_DrainsRemaining() throws Exception {
+        CountDownLatch written = new CountDownLatch(30);
+        recordBatches(written);
+        // 超时很长，只能靠关闭时写完
+        setField("batchSize", 1000);
+        setField("flushInterval", 60000L);
+        historyWriter.start();
+
+        for (int i = 0; i < 30; i++) {
+            historyWriter.offer(history(i));
+        }
+        historyWriter.stop();
+
+        assertEquals(0, written.getCount());
+        assertEquals(0, historyWriter.getQueueSize());
+        verify(historyDao);
+    }
+}
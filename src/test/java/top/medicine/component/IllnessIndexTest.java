@@ -0,0 +1,108 @@
+package top.medicine.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.Before;
+import org.junit.Test;
+import top.medicine.dao.IllnessDao;
+import top.medicine.entity.Illness;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class IllnessIndexTest {
+
+    private IllnessIndex illnessIndex;
+    private IllnessDao illnessDao;
+
+    @Before
+    public void setUp() {
+        // 创建模拟对象
+        illnessDao = createMock(IllnessDao.class);
+
+        // 创建被测试对象并注入模拟的DAO
+        illnessIndex = new IllnessIndex();
+        try {
+            Field illnessDaoField = IllnessIndex.class.getDeclaredField("illnessDao");
+            illnessDaoField.setAccessible(true);
+            illnessDaoField.set(illnessIndex, illnessDao);
+        } catch (Exception e) {
+            throw new RuntimeException("依赖注入失败", e);
+        }
+
+        // 设置模拟行为
+        expect(illnessDao.selectList(anyObject(QueryWrapper.class))).andReturn(Arrays.asList(
+                illness(1, 10, "病毒性感冒", "受凉、淋雨", "鼻塞、流涕、发热、头痛", 1000L),
+                illness(2, 10, "风寒感冒", "寒气入侵", "恶寒重、发热轻、头痛身痛", 2000L),
+                illness(3, 3, "偏头痛", "遗传因素", "搏动性疼痛", 3000L)
+        ));
+        replay(illnessDao);
+        illnessIndex.rebuild();
+    }
+
+    private static Illness illness(int id, int kindId, String name, String reason, String symptom, long createTime) {
+        return Illness.builder()
+                .id(id)
+                .kindId(kindId)
+                .illnessName(name)
+                .includeReason(reason)
+                .illnessSymptom(symptom)
+                .createTime(new Date(createTime))
+                .build();
+    }
+
+    @Test
+    public void testSearch_NameRankedFirst() {
+        // 执行测试
+        List<Integer> result = illnessIndex.search(null, "头痛");
+
+        // 验证结果：名称命中的排在症状命中之前
+        assertEquals(3, result.get(0).intValue());
+        assertEquals(3, result.size());
+        verify(illnessDao);
+    }
+
+    @Test
+    public void testSearch_WithKind() {
+        List<Integer> result = illnessIndex.search(10, "头痛");
+        assertEquals(2, result.size());
+        assertFalse(result.contains(3));
+    }
+
+    @Test
+    public void testSearch_SingleCharacter() {
+        List<Integer> result = illnessIndex.search(null, "热");
+        assertEquals(2, result.size());
+        assertTrue(result.containsAll(Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void testSearch_TermsNotAdjacent() {
+        // "头痛发热" 原文中并不连续出现，按词元分别命中
+        List<Integer> result = illnessIndex.search(null, "头痛发热");
+        assertEquals(Arrays.asList(1, 2), result.subList(0, 2).stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSearch_StopWordsOnly() {
+        assertEquals(Collections.emptyList(), illnessIndex.search(null, "的和"));
+    }
+
+    @Test
+    public void testPutAndRemove() {
+        // 更新后旧内容不再命中
+        illnessIndex.put(illness(3, 3, "丛集性头疼", "遗传因素", "眼眶周围剧痛", 3000L));
+        assertFalse(illnessIndex.search(null, "头痛").contains(3));
+        assertEquals(Collections.singletonList(3), illnessIndex.search(null, "头疼"));
+
+        // 删除后不再命中
+        illnessIndex.remove(1);
+        assertEquals(Collections.singletonList(2), illnessIndex.search(null, "头痛"));
+    }
+}
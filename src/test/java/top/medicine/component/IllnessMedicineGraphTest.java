@@ -0,0 +1,91 @@
+package top.medicine.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.Before;
+import org.junit.Test;
+import top.medicine.dao.IllnessMedicineDao;
+import top.medicine.entity.IllnessMedicine;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class IllnessMedicineGraphTest {
+
+    private IllnessMedicineGraph graph;
+
+    @Before
+    public void setUp() {
+        // 创建模拟对象
+        IllnessMedicineDao illnessMedicineDao = createMock(IllnessMedicineDao.class);
+
+        // 创建被测试对象并注入模拟的DAO
+        graph = new IllnessMedicineGraph();
+        try {
+            Field field = IllnessMedicineGraph.class.getDeclaredField("illnessMedicineDao");
+            field.setAccessible(true);
+            field.set(graph, illnessMedicineDao);
+        } catch (Exception e) {
+            throw new RuntimeException("依赖注入失败", e);
+        }
+
+        // 疾病1: 药品10、11、12；疾病2: 药品11、12；疾病3: 药品12；疾病4: 药品20
+        expect(illnessMedicineDao.selectList(anyObject(QueryWrapper.class))).andReturn(Arrays.asList(
+                relation(1, 1, 10), relation(2, 1, 11), relation(3, 1, 12),
+                relation(4, 2, 11), relation(5, 2, 12),
+                relation(6, 3, 12),
+                relation(7, 4, 20)));
+        replay(illnessMedicineDao);
+        graph.rebuild();
+    }
+
+    private static IllnessMedicine relation(int id, int illnessId, int medicineId) {
+        return IllnessMedicine.builder().id(id).illnessId(illnessId).medicineId(medicineId).build();
+    }
+
+    private static BitSet bits(int... values) {
+        BitSet bitSet = new BitSet();
+        for (int value : values) {
+            bitSet.set(value);
+        }
+        return bitSet;
+    }
+
+    @Test
+    public void testMedicinesOfAllAndAny() {
+        assertEquals(bits(11, 12), graph.medicinesOfAll(Arrays.asList(1, 2)));
+        assertEquals(bits(12), graph.medicinesOfAll(Arrays.asList(1, 2, 3)));
+        assertEquals(bits(), graph.medicinesOfAll(Arrays.asList(1, 4)));
+        assertEquals(bits(), graph.medicinesOfAll(Arrays.asList(1, 99)));
+        assertEquals(bits(10, 11, 12, 20), graph.medicinesOfAny(Arrays.asList(1, 4, 99)));
+    }
+
+    @Test
+    public void testIllnessesSharingMedicines_RankedBySharedCount() {
+        assertEquals(Arrays.asList(2, 3), graph.illnessesSharingMedicines(1));
+        assertEquals(Collections.emptyList(), graph.illnessesSharingMedicines(4));
+        assertEquals(Collections.emptyList(), graph.illnessesSharingMedicines(99));
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        // 更新关联：疾病3改为关联药品20
+        graph.put(relation(6, 3, 20));
+        assertEquals(Arrays.asList(4), graph.illnessesSharingMedicines(3));
+        assertEquals(bits(), graph.medicinesOfAll(Arrays.asList(1, 3)));
+
+        // 重复关联只有全部删除后才去掉边
+        graph.put(relation(8, 2, 11));
+        graph.remove(4);
+        assertEquals(bits(11, 12), graph.medicinesOfAny(Collections.singletonList(2)));
+        graph.remove(8);
+        assertEquals(bits(12), graph.medicinesOfAny(Collections.singletonList(2)));
+
+        graph.remove(7);
+        assertEquals(bits(), graph.medicinesOfAny(Collections.singletonList(4)));
+    }
+}
@@ -0,0 +1,160 @@
+package top.medicine.component;
+
+import org.junit.Before;
+import org.junit.Test;
+import top.medicine.entity.Illness;
+
+import java.lang.reflect.Field;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class IllnessTrendingTest {
+
+    private IllnessTrending illnessTrending;
+    private IllnessIndex illnessIndex;
+
+    // 可拨动的时钟
+    private final MutableClock clock = new MutableClock();
+
+    @Before
+    public void setUp() throws Exception {
+        illnessIndex = new IllnessIndex();
+        for (int id = 1; id <= 20; id++) {
+            illnessIndex.put(Illness.builder().id(id).illnessName("疾病" + id).build());
+        }
+        illnessTrending = new IllnessTrending();
+        setField("illnessIndex", illnessIndex);
+        setField("clock", clock);
+    }
+
+    // 辅助方法：通过反射设置字段
+    private void setField(String fieldName, Object value) throws Exception {
+        Field field = IllnessTrending.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(illnessTrending, value);
+    }
+
+    @Test
+    public void testTop_RankedAndBounded() {
+        // 疾病i浏览i次
+        for (int id = 1; id <= 20; id++) {
+            for (int i = 0; i < id; i++) {
+                illnessTrending.record(id);
+            }
+        }
+
+        List<Map<String, Object>> top = illnessTrending.top(IllnessTrending.TOP_K);
+
+        assertEquals(IllnessTrending.TOP_K, top.size());
+        assertEquals(20, top.get(0).get("id"));
+        assertEquals("疾病20", top.get(0).get("illnessName"));
+        assertEquals(20L, top.get(0).get("views"));
+        assertEquals(11, top.get(IllnessTrending.TOP_K - 1).get("id"));
+        assertEquals(3, illnessTrending.top(3).size());
+    }
+
+    @Test
+    public void testTop_ExpiredBucketsLeaveWindow() {
+        // 疾病1在很早之前浏览5次，疾病2在12小时后浏览2次
+        for (int i = 0; i < 5; i++) {
+            illnessTrending.record(1);
+        }
+        clock.plusMinutes(12 * 60);
+        illnessTrending.record(2);
+        illnessTrending.record(2);
+        assertEquals(1, illnessTrending.top(1).get(0).get("id"));
+
+        // 24小时后疾病1的浏览移出窗口，疾病2升到第一
+        clock.plusMinutes(12 * 60);
+        assertEquals(Collections.singletonList(2), ids(illnessTrending.top(10)));
+
+        // 再过一天窗口清空
+        clock.plusMinutes(24 * 60);
+        assertTrue(illnessTrending.top(10).isEmpty());
+    }
+
+    @Test
+    public void testTop_EvictedIllnessReentersAfterExpiry() {
+        // 前K名之外的疾病，在榜上疾病的浏览过期后要能重新上榜
+        for (int id = 1; id <= IllnessTrending.TOP_K; id++) {
+            illnessTrending.record(id);
+            illnessTrending.record(id);
+        }
+        clock.plusMinutes(1);
+        illnessTrending.record(15);
+        assertFalse(ids(illnessTrending.top(10)).contains(15));
+
+        clock.plusMinutes(24 * 60 - 1);
+        assertEquals(Collections.singletonList(15), ids(illnessTrending.top(10)));
+    }
+
+    @Test
+    public void testTop_SkipsDeletedIllness() {
+        illnessTrending.record(3);
+        illnessTrending.record(3);
+        illnessTrending.record(4);
+        illnessIndex.remove(3);
+
+        assertEquals(Collections.singletonList(4), ids(illnessTrending.top(10)));
+    }
+
+    @Test
+    public void testRemove_FreesSlotForNextIllness() {
+        // 疾病i浏览i次，榜上为疾病11~20
+        for (int id = 1; id <= 20; id++) {
+            for (int i = 0; i < id; i++) {
+                illnessTrending.record(id);
+            }
+        }
+        illnessIndex.remove(20);
+        illnessTrending.remove(20);
+
+        // 验证结果：删除的疾病让出名次，疾病10补上
+        List<Object> ids = ids(illnessTrending.top(IllnessTrending.TOP_K));
+        assertEquals(IllnessTrending.TOP_K, ids.size());
+        assertEquals(19, ids.get(0));
+        assertEquals(10, ids.get(IllnessTrending.TOP_K - 1));
+    }
+
+    private static List<Object> ids(List<Map<String, Object>> top) {
+        return top.stream().map(item -> item.get("id")).collect(Collectors.toList());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private long millis = TimeUnit.DAYS.toMillis(20000);
+
+        void plusMinutes(long minutes) {
+            millis += TimeUnit.MINUTES.toMillis(minutes);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+    }
+}
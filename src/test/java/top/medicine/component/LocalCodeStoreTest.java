@@ -0,0 +1,121 @@
+package top.medicine.component;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class LocalCodeStoreTest {
+
+    private LocalCodeStore codeStore;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    @Before
+    public void setUp() {
+        codeStore = new LocalCodeStore();
+        codeStore.clock = now::get;
+    }
+
+    @Test
+    public void testValueExpires() {
+        codeStore.put("a", "123456", 1000);
+        assertEquals("123456", codeStore.get("a"));
+
+        now.addAndGet(999);
+        assertEquals("123456", codeStore.get("a"));
+        now.addAndGet(1);
+        assertNull(codeStore.get("a"));
+    }
+
+    @Test
+    public void testPurgeRemovesExpiredEntries() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            codeStore.put("k" + i, "v", 1000 + i);
+        }
+        now.addAndGet(1049);
+        codeStore.purge();
+
+        assertEquals(50, entries().size());
+        assertEquals(50, codeStore.size());
+    }
+
+    @Test
+    public void testOverwrittenValueSurvivesOldExpiry() throws Exception {
+        codeStore.put("a", "old", 1000);
+        now.addAndGet(500);
+        codeStore.put("a", "new", 1000);
+
+        // 旧值到期出队时不能删除新值
+        now.addAndGet(600);
+        codeStore.purge();
+        assertEquals("new", codeStore.get("a"));
+        assertEquals(1, entries().size());
+
+        now.addAndGet(400);
+        codeStore.purge();
+        assertTrue(entries().isEmpty());
+    }
+
+    @Test
+    public void testIncrementWindow() {
+        assertEquals(1, codeStore.increment("r", 1000));
+        assertEquals(2, codeStore.increment("r", 1000));
+        now.addAndGet(500);
+        assertEquals(3, codeStore.increment("r", 1000));
+
+        // 窗口从第一次计数开始，过期后重新计数
+        now.addAndGet(500);
+        assertEquals(1, codeStore.increment("r", 1000));
+    }
+
+    @Test
+    public void testCountDoesNotIncrement() {
+        assertEquals(0, codeStore.count("r"));
+        codeStore.increment("r", 1000);
+        assertEquals(1, codeStore.count("r"));
+        assertEquals(1, codeStore.count("r"));
+
+        now.addAndGet(1000);
+        assertEquals(0, codeStore.count("r"));
+    }
+
+    @Test
+    public void testConcurrentIncrement() throws Exception {
+        int threads = 8;
+        int perThread = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    codeStore.increment("r", 60000);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread + 1, codeStore.increment("r", 60000));
+    }
+
+    private Map<?, ?> entries() throws Exception {
+        Field field = LocalCodeStore.class.getDeclaredField("entries");
+        field.setAccessible(true);
+        return (Map<?, ?>) field.get(codeStore);
+    }
+}
@@ -0,0 +1,203 @@
+package top.medicine.component;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class LocalStorageTest {
+
+    private Path root;
+    private LocalStorage localStorage;
+    private byte[] content;
+    private String key;
+
+    @Before
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("local-storage");
+        localStorage = new LocalStorage();
+        Field field = LocalStorage.class.getDeclaredField("root");
+        field.setAccessible(true);
+        field.set(localStorage, root.toString());
+        localStorage.init();
+
+        content = new byte[100_000];
+        new Random(1).nextBytes(content);
+        key = "7/avatar.png";
+        localStorage.put(key, new ByteArrayInputStream(content), content.length);
+        assertEquals("/file/7/avatar.png", localStorage.url(key));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testUploadWritesCompleteFileWithoutTempFiles() throws IOException {
+        assertArrayEquals(content, Files.readAllBytes(localStorage.resolve(key)));
+        try (Stream<Path> files = Files.list(root.resolve("7"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testServeWholeFile() throws IOException {
+        MockHttpServletResponse response = serve(get());
+
+        assertEquals(200, response.getStatus());
+        assertEquals("image/png", response.getContentType());
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        assertNull(response.getHeader("Content-Disposition"));
+        assertEquals(content.length, response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertNotNull(response.getHeader("ETag"));
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void testServeRange() throws IOException {
+        MockHttpServletRequest request = get();
+        request.addHeader("Range", "bytes=1000-1999");
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 1000-1999/100000", response.getHeader("Content-Range"));
+        assertEquals(1000, response.getContentLengthLong());
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 2000), response.getContentAsByteArray());
+    }
+
+    @Test
+    public void testServeSuffixAndOpenRange() throws IOException {
+        MockHttpServletRequest suffix = get();
+        suffix.addHeader("Range", "bytes=-500");
+        assertArrayEquals(Arrays.copyOfRange(content, 99_500, 100_000), serve(suffix).getContentAsByteArray());
+
+        MockHttpServletRequest open = get();
+        open.addHeader("Range", "bytes=99000-");
+        MockHttpServletResponse response = serve(open);
+        assertEquals("bytes 99000-99999/100000", response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(content, 99_000, 100_000), response.getContentAsByteArray());
+    }
+
+    @Test
+    public void testUnsatisfiableRange() throws IOException {
+        MockHttpServletRequest request = get();
+        request.addHeader("Range", "bytes=200000-");
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */100000", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    public void testMultipleRangesServeWholeFile() throws IOException {
+        MockHttpServletRequest request = get();
+        request.addHeader("Range", "bytes=0-10,20-30");
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(content.length, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testIfNoneMatchReturnsNotModified() throws IOException {
+        String etag = serve(get()).getHeader("ETag");
+        MockHttpServletRequest request = get();
+        request.addHeader("If-None-Match", "\"other\", " + etag);
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testStaleIfRangeServesWholeFile() throws IOException {
+        MockHttpServletRequest request = get();
+        request.addHeader("Range", "bytes=0-9");
+        request.addHeader("If-Range", "\"stale\"");
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(content.length, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testSendfileLeavesBodyToConnector() throws IOException {
+        MockHttpServletRequest request = get();
+        request.setAttribute(LocalStorage.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader("Range", "bytes=10-19");
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(localStorage.resolve(key).toString(), request.getAttribute(LocalStorage.SENDFILE_FILENAME));
+        assertEquals(10L, request.getAttribute(LocalStorage.SENDFILE_START));
+        assertEquals(20L, request.getAttribute(LocalStorage.SENDFILE_END));
+    }
+
+    @Test
+    public void testHeadAndMissingFile() throws IOException {
+        MockHttpServletRequest head = new MockHttpServletRequest("HEAD", "/file/" + key);
+        MockHttpServletResponse response = serve(head);
+        assertEquals(200, response.getStatus());
+        assertEquals(content.length, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        MockHttpServletResponse missing = new MockHttpServletResponse();
+        localStorage.serve("7/missing.png", get(), missing);
+        assertEquals(404, missing.getStatus());
+    }
+
+    @Test
+    public void testNonMediaServedAsAttachment() throws IOException {
+        byte[] html = "<script>alert(1)</script>".getBytes();
+        localStorage.put("7/page.html", new ByteArrayInputStream(html), html.length);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        localStorage.serve("7/page.html", get(), response);
+
+        // 不按 text/html 渲染，浏览器只能下载
+        assertEquals(200, response.getStatus());
+        assertEquals("application/octet-stream", response.getContentType());
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        assertTrue(response.getHeader("Content-Disposition").startsWith("attachment"));
+    }
+
+    @Test
+    public void testPathTraversalRejected() throws IOException {
+        MockHttpServletResponse escaped = new MockHttpServletResponse();
+        localStorage.serve("7/../../etc/passwd", get(), escaped);
+        assertEquals(404, escaped.getStatus());
+        try {
+            localStorage.put("../outside/a.png", new ByteArrayInputStream(content), content.length);
+            fail("不允许写到存储目录之外");
+        } catch (IllegalArgumentException e) {
+            assertFalse(Files.exists(root.resolveSibling("outside")));
+        }
+    }
+
+    private MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/file/" + key);
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        localStorage.serve(key, request, response);
+        return response;
+    }
+}
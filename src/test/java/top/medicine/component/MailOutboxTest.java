@@ -0,0 +1,278 @@
+package top.medicine.component;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import top.medicine.dao.EmailOutboxDao;
+import top.medicine.entity.EmailOutbox;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class MailOutboxTest {
+
+    private FakeSmtpServer smtpServer;
+    private MailOutbox mailOutbox;
+
+    // 模拟的 email_outbox 表
+    private final Map<Long, EmailOutbox> rows = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // countPending 的调用次数
+    private final AtomicLong countQueries = new AtomicLong();
+
+    @Before
+    public void setUp() throws Exception {
+        smtpServer = new FakeSmtpServer();
+        mailOutbox = new MailOutbox();
+        setField("emailOutboxDao", emailOutboxDao());
+        setField("mailSender", mailSender(smtpServer.getPort()));
+        setField("from", "noreply@example.com");
+        setField("workers", 0);
+        setField("backoff", 50L);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mailOutbox.stop();
+        smtpServer.close();
+    }
+
+    @Test
+    public void testBatchSharesOneConnection() {
+        for (int i = 0; i < 5; i++) {
+            mailOutbox.enqueue("user" + i + "@example.com", "验证码", "<p>" + i + "</p>");
+        }
+
+        assertEquals(5, mailOutbox.dispatchOnce());
+
+        assertEquals(1, smtpServer.getConnections());
+        assertEquals(Arrays.asList("user0@example.com", "user1@example.com", "user2@example.com",
+                        "user3@example.com", "user4@example.com"),
+                smtpServer.getMessages().stream().map(m -> m[0]).sorted().collect(Collectors.toList()));
+        assertTrue(rows.values().stream().allMatch(row -> row.getStatus() == EmailOutbox.SENT));
+        assertEquals(5, mailOutbox.getSent());
+    }
+
+    @Test
+    public void testRetryWithBackoff() throws Exception {
+        smtpServer.rejectNextRecipients(1);
+        mailOutbox.enqueue("user@example.com", "验证码", "<p>123456</p>");
+
+        // 第一次被拒绝，等待退避时间后重试
+        mailOutbox.dispatchOnce();
+        EmailOutbox row = rows.values().iterator().next();
+        assertEquals(EmailOutbox.PENDING, (int) row.getStatus());
+        assertEquals(1, (int) row.getAttempts());
+        assertNotNull(row.getLastError());
+        assertEquals(0, mailOutbox.dispatchOnce());
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(1, mailOutbox.dispatchOnce());
+        assertEquals(EmailOutbox.SENT, (int) row.getStatus());
+        assertEquals(2, (int) row.getAttempts());
+        assertEquals(1, smtpServer.getMessages().size());
+        assertEquals(1, mailOutbox.getRetried());
+    }
+
+    @Test
+    public void testGiveUpAfterMaxAttempts() throws Exception {
+        // 服务不可用
+        smtpServer.close();
+        setField("maxAttempts", 2);
+        mailOutbox.enqueue("user@example.com", "验证码", "<p>123456</p>");
+
+        mailOutbox.dispatchOnce();
+        TimeUnit.MILLISECONDS.sleep(100);
+        mailOutbox.dispatchOnce();
+
+        EmailOutbox row = rows.values().iterator().next();
+        assertEquals(EmailOutbox.FAILED, (int) row.getStatus());
+        assertEquals(1, mailOutbox.getFailed());
+        assertEquals(0, mailOutbox.getPending());
+    }
+
+    @Test
+    public void testExpiredNotSent() throws Exception {
+        mailOutbox.enqueue("user@example.com", "验证码", "<p>123456</p>", new Date(System.currentTimeMillis() - 1));
+
+        assertEquals(1, mailOutbox.dispatchOnce());
+
+        EmailOutbox row = rows.values().iterator().next();
+        assertEquals(EmailOutbox.FAILED, (int) row.getStatus());
+        assertEquals("已过期", row.getLastError());
+        assertTrue(smtpServer.getMessages().isEmpty());
+        assertEquals(0, mailOutbox.getPending());
+    }
+
+    @Test
+    public void testGiveUpWhenRetryWouldExpire() throws Exception {
+        // 退避时间超过剩余有效期，不再重试
+        setField("backoff", 60000L);
+        smtpServer.rejectNextRecipients(1);
+        mailOutbox.enqueue("user@example.com", "验证码", "<p>123456</p>", new Date(System.currentTimeMillis() + 30000));
+
+        mailOutbox.dispatchOnce();
+
+        EmailOutbox row = rows.values().iterator().next();
+        assertEquals(EmailOutbox.FAILED, (int) row.getStatus());
+        assertEquals(1, mailOutbox.getFailed());
+        assertEquals(0, mailOutbox.getRetried());
+    }
+
+    @Test
+    public void testPurgeFinishedAfterRetention() throws Exception {
+        setField("retention", 50L);
+        setField("purgeBatch", 2);
+        for (int i = 0; i < 3; i++) {
+            mailOutbox.enqueue("user" + i + "@example.com", "验证码", "<p>" + i + "</p>");
+        }
+        mailOutbox.dispatchOnce();
+        mailOutbox.enqueue("later@example.com", "验证码", "<p>123456</p>");
+
+        // 未超过保留时间的不删除
+        assertEquals(0, mailOutbox.purge());
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(3, mailOutbox.purge());
+
+        // 待发送的邮件保留
+        assertEquals(1, rows.size());
+        assertEquals("later@example.com", rows.values().iterator().next().getToAddress());
+    }
+
+    @Test
+    public void testBackoffDoublesUpToLimit() {
+        assertEquals(50, mailOutbox.backoff(1));
+        assertEquals(100, mailOutbox.backoff(2));
+        assertEquals(400, mailOutbox.backoff(4));
+        assertEquals(600000, mailOutbox.backoff(40));
+    }
+
+    @Test
+    public void testWorkerSendsOffRequestThread() throws Exception {
+        setField("workers", 2);
+        setField("pollInterval", 10000L);
+        mailOutbox.start();
+
+        // 放入发件箱后立即返回，后台线程被唤醒后发送，不必等到下一次轮询
+        long start = System.nanoTime();
+        mailOutbox.enqueue("user@example.com", "验证码", "<p>123456</p>");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        while (smtpServer.getMessages().isEmpty() && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(1, smtpServer.getMessages().size());
+    }
+
+    @Test
+    public void testIdlePollDoesNotCountTable() throws Exception {
+        setField("workers", 2);
+        setField("pollInterval", 10L);
+        mailOutbox.start();
+
+        // 空闲轮询多次，只在启动时校正一次计数
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(1, countQueries.get());
+
+        mailOutbox.enqueue("user@example.com", "验证码", "<p>123456</p>");
+        long start = System.nanoTime();
+        while (smtpServer.getMessages().isEmpty() && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        // 计数随写入与发送增减
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertEquals(0, mailOutbox.getPending());
+        assertEquals(1, countQueries.get());
+
+        // 定时检查时按数据库校正
+        mailOutbox.releaseStale();
+        assertEquals(2, countQueries.get());
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        Field field = MailOutbox.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mailOutbox, value);
+    }
+
+    private static JavaMailSenderImpl mailSender(int port) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(port);
+        Properties properties = new Properties();
+        properties.setProperty("mail.smtp.connectiontimeout", "2000");
+        properties.setProperty("mail.smtp.timeout", "2000");
+        sender.setJavaMailProperties(properties);
+        return sender;
+    }
+
+    private EmailOutboxDao emailOutboxDao() {
+        return (EmailOutboxDao) Proxy.newProxyInstance(EmailOutboxDao.class.getClassLoader(),
+                new Class<?>[]{EmailOutboxDao.class}, (proxy, method, args) -> {
+                    synchronized (rows) {
+                        switch (method.getName()) {
+                            case "insert":
+                                EmailOutbox outbox = (EmailOutbox) args[0];
+                                outbox.setId(sequence.incrementAndGet());
+                                rows.put(outbox.getId(), outbox);
+                                return 1;
+                            case "selectDue":
+                                Date now = (Date) args[0];
+                                return rows.values().stream()
+                                        .filter(row -> row.getStatus() == EmailOutbox.PENDING && !row.getNextAttemptTime().after(now))
+                                        .limit((int) args[1])
+                                        .map(row -> {
+                                            EmailOutbox copy = new EmailOutbox();
+                                            BeanUtils.copyProperties(row, copy);
+                                            return copy;
+                                        })
+                                        .collect(Collectors.toList());
+                            case "claim":
+                                EmailOutbox claimed = rows.get((Long) args[0]);
+                                if (claimed == null || claimed.getStatus() != EmailOutbox.PENDING) {
+                                    return 0;
+                                }
+                                claimed.setStatus(EmailOutbox.SENDING);
+                                return 1;
+                            case "finish":
+                                EmailOutbox result = (EmailOutbox) args[0];
+                                EmailOutbox row = rows.get(result.getId());
+                                row.setStatus(result.getStatus());
+                                row.setAttempts(result.getAttempts());
+                                row.setNextAttemptTime(result.getNextAttemptTime());
+                                row.setLastError(result.getLastError());
+                                row.setUpdateTime(new Date());
+                                return 1;
+                            case "deleteFinished":
+                                Date before = (Date) args[0];
+                                List<Long> finished = rows.values().stream()
+                                        .filter(r -> (r.getStatus() == EmailOutbox.SENT || r.getStatus() == EmailOutbox.FAILED)
+                                                && r.getUpdateTime().before(before))
+                                        .map(EmailOutbox::getId)
+                                        .limit((int) args[1])
+                                        .collect(Collectors.toList());
+                                finished.forEach(rows::remove);
+                                return finished.size();
+                            case "countPending":
+                                countQueries.incrementAndGet();
+                                return rows.values().stream().filter(r -> r.getStatus() == EmailOutbox.PENDING).count();
+                            case "releaseStale":
+                                return 0;
+                            case "toString":
+                                return "EmailOutboxDao";
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+    }
+}
@@ -5,41 +5,53 @@ import static org.junit.Assert.*;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.util.Random;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.web.multipart.MultipartFile;
-import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSS;
 import com.aliyun.oss.model.*;
-import top.medicine.component.OssClient;
 
 @SpringBootTest
 public class OssClientTest {
 
     private OssClient ossClient;
-    private OSSClient mockOssClient;
+    private OSS mockOssClient;
+    private FakeOssServer ossServer;
 
     @Before
     public void setUp() {
-        // 创建被测试对象
-        ossClient = new OssClient();
+        // 创建模拟OSS客户端，被测试对象只创建一次客户端
+        mockOssClient = createMock(OSS.class);
+        ossClient = new OssClient() {
+            @Override
+            protected OSS createOssClient() {
+                return mockOssClient;
+            }
+        };
 
         // 使用反射设置私有字段
         setField(ossClient, "bucketName", "test-bucket");
         setField(ossClient, "endPoint", "test-endpoint");
         setField(ossClient, "accessKeyId", "test-access-key");
         setField(ossClient, "accessKeySecret", "test-secret-key");
+    }
 
-        // 创建模拟OSSClient
-        mockOssClient = createMock(OSSClient.class);
+    @After
+    public void tearDown() {
+        if (ossServer != null) {
+            ossClient.shutdown();
+            ossServer.close();
+        }
     }
 
     // 辅助方法：通过反射设置私有字段
     private void setField(Object target, String fieldName, Object value) {
         try {
-            Field field = target.getClass().getDeclaredField(fieldName);
+            Field field = OssClient.class.getDeclaredField(fieldName);
             field.setAccessible(true);
             field.set(target, value);
         } catch (Exception e) {
@@ -52,23 +64,19 @@ public class OssClientTest {
         // 准备测试数据
         MockMultipartFile file = new MockMultipartFile("file", "test.jpg", "image/jpeg", "image content".getBytes());
 
-        // 模拟行为
+        // 模拟行为：启动时创建存储桶，之后每次上传只有一次请求
         expect(mockOssClient.doesBucketExist("test-bucket")).andReturn(false);
         expect(mockOssClient.createBucket(anyObject(CreateBucketRequest.class))).andReturn(new Bucket());
-
-        PutObjectResult putResult = new PutObjectResult();
-        expect(mockOssClient.putObject(anyObject(PutObjectRequest.class))).andReturn(putResult);
-
-        mockOssClient.setBucketAcl(eq("test-bucket"), eq(CannedAccessControlList.PublicRead));
-        expectLastCall();
-
+        expect(mockOssClient.putObject(anyObject(PutObjectRequest.class))).andReturn(new PutObjectResult()).times(3);
         replay(mockOssClient);
 
         // 执行测试
-        String result = ossClient.upload(file, "uploads");
+        ossClient.init();
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(put(ossClient, file, "uploads/" + i + ".jpg"));
+        }
 
         // 验证结果
-        assertNotNull(result);
         verify(mockOssClient);
     }
 
@@ -81,32 +89,132 @@ public class OssClientTest {
         MockMultipartFile file = new MockMultipartFile(
                 "file", filename, "image/jpeg", "test data".getBytes());
 
-        // 模拟行为 - 桶已存在
+        // 模拟行为 - 桶已存在，只在启动时设置一次权限
         expect(mockOssClient.doesBucketExist("test-bucket")).andReturn(true);
+        mockOssClient.setBucketAcl(eq("test-bucket"), eq(CannedAccessControlList.PublicRead));
+        expectLastCall();
+        expect(mockOssClient.putObject(anyObject(PutObjectRequest.class))).andReturn(new PutObjectResult());
+        mockOssClient.shutdown();
+        expectLastCall();
+        replay(mockOssClient);
+
+        // 执行测试
+        ossClient.init();
+        String result = put(ossClient, file, path + "/" + filename);
+        ossClient.shutdown();
+
+        // 验证结果
+        assertTrue(result.startsWith("https://test-bucket.test-endpoint/test/path/"));
+        assertTrue(result.endsWith(".jpg"));
+        verify(mockOssClient);
+    }
 
-        PutObjectResult putResult = new PutObjectResult();
-        expect(mockOssClient.putObject(anyObject(PutObjectRequest.class))).andReturn(putResult);
+    @Test
+    public void testUpload_BucketCheckRetriedOnFirstUpload() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "test.jpg", "image/jpeg", "test data".getBytes());
 
+        // 模拟行为 - 启动时 OSS 不可用
+        expect(mockOssClient.doesBucketExist("test-bucket")).andThrow(new com.aliyun.oss.ClientException("unreachable"));
+        expect(mockOssClient.doesBucketExist("test-bucket")).andReturn(true);
         mockOssClient.setBucketAcl(eq("test-bucket"), eq(CannedAccessControlList.PublicRead));
         expectLastCall();
-
+        expect(mockOssClient.putObject(anyObject(PutObjectRequest.class))).andReturn(new PutObjectResult()).times(2);
         replay(mockOssClient);
 
         // 执行测试
-        String result = ossClient.upload(file, path);
+        ossClient.init();
+        put(ossClient, file, "test/path/1.jpg");
+        put(ossClient, file, "test/path/2.jpg");
 
         // 验证结果
-        assertNotNull(result);
         verify(mockOssClient);
     }
 
     @Test
-    public void testUpload_NullFile() throws IOException {
+    public void testUrlAndBackend() {
+        // 访问地址与存储标识都由存储桶决定
+        assertEquals("https://test-bucket.test-endpoint/ba/abc.png", ossClient.url("ba/abc.png"));
+        assertEquals("oss:test-bucket", ossClient.backend());
+    }
+
+    @Test
+    public void testUpload_LargeFileUsesParallelMultipart() throws IOException {
+        // 准备测试数据：2.5MB，按256KB分为10个分片
+        byte[] content = new byte[2_621_440];
+        new Random(1).nextBytes(content);
+        MockMultipartFile file = new MockMultipartFile("file", "scan.pdf", "application/pdf", content);
+        OssClient client = localClient(false);
+
+        // 执行测试
+        String key = "7/scan.pdf";
+        put(client, file, key);
+
+        // 验证结果：内容完整，分片并行上传，复用连接池
+        assertArrayEquals(content, ossServer.getObject(key));
+        assertEquals(1, ossServer.getRequests("createBucket"));
+        assertEquals(10, ossServer.getRequests("uploadPart"));
+        assertEquals(0, ossServer.getRequests("putObject"));
+        assertTrue(ossServer.getMaxInFlightParts() > 1);
+        assertTrue(ossServer.getConnections() <= 4 + 1);
+    }
+
+    @Test
+    public void testUpload_SmallFilesReuseConnections() throws IOException {
+        OssClient client = localClient(true);
+
+        // 执行测试
+        for (int i = 0; i < 20; i++) {
+            put(client, new MockMultipartFile("file", "a.png", "image/png", new byte[1024]), "1/" + i + ".png");
+        }
+
+        // 验证结果：存储桶只检查一次，顺序上传复用同一个连接
+        assertEquals(1, ossServer.getRequests("getBucketAcl"));
+        assertEquals(1, ossServer.getRequests("setBucketAcl"));
+        assertEquals(20, ossServer.getRequests("putObject"));
+        assertEquals(20, ossServer.getObjectCount());
+        assertEquals(1, ossServer.getConnections());
+    }
+
+    @Test
+    public void testUpload_FailedPartAbortsUpload() throws IOException {
+        byte[] content = new byte[2_621_440];
+        MockMultipartFile file = new MockMultipartFile("file", "scan.pdf", "application/pdf", content);
+        OssClient client = localClient(true);
+        ossServer.failPart(3);
+
         // 执行测试
-        String result = ossClient.upload(null, "test/path");
+        try {
+            put(client, file, "7/scan.pdf");
+            fail("分片上传失败时应抛出异常");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("分片上传失败"));
+        }
 
         // 验证结果
-        assertNull(result);
+        assertEquals(1, ossServer.getRequests("abortMultipart"));
+        assertEquals(0, ossServer.getRequests("completeMultipart"));
+        assertEquals(0, ossServer.getOpenUploads());
+    }
+
+    // 保存上传的文件并返回访问地址
+    private static String put(OssClient client, MockMultipartFile file, String key) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            client.put(key, in, file.getSize());
+        }
+        return client.url(key);
     }
 
-}
\ No newline at end of file
+    // 连接本地 OSS 服务的客户端，超过1MB的文件按256KB分片
+    private OssClient localClient(boolean bucketExists) throws IOException {
+        ossServer = new FakeOssServer(bucketExists, 0);
+        ossClient = new OssClient();
+        setField(ossClient, "bucketName", "test-bucket");
+        setField(ossClient, "endPoint", ossServer.getEndpoint());
+        setField(ossClient, "accessKeyId", "test-access-key");
+        setField(ossClient, "accessKeySecret", "test-secret-key");
+        setField(ossClient, "multipartThreshold", 1_048_576L);
+        setField(ossClient, "partSize", 262_144);
+        ossClient.init();
+        return ossClient;
+    }
+}
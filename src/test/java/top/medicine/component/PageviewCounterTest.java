@@ -0,0 +1,204 @@
+package top.medicine.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.easymock.Capture;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.medicine.dao.PageviewDao;
+import top.medicine.entity.Pageview;
+import top.medicine.utils.HyperLogLog;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class PageviewCounterTest {
+
+    private PageviewCounter pageviewCounter;
+    private PageviewDao pageviewDao;
+
+    // 疾病id -> 已写回的浏览量
+    private final Map<Integer, Long> persisted = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws Exception {
+        pageviewDao = createMock(PageviewDao.class);
+        pageviewCounter = new PageviewCounter();
+        Field field = PageviewCounter.class.getDeclaredField("pageviewDao");
+        field.setAccessible(true);
+        field.set(pageviewCounter, pageviewDao);
+    }
+
+    @Test
+    public void testFlush_NoIncrementLostUnderConcurrency() throws Exception {
+        // 设置模拟行为：记录每次写回的增量
+        expect(pageviewDao.upsertIncrements(anyObject(List.class))).andAnswer(() -> {
+            List<Pageview> deltas = (List<Pageview>) getCurrentArguments()[0];
+            deltas.forEach(p -> persisted.merge(p.getIllnessId(), (long) p.getPageviews(), Long::sum));
+            return deltas.size();
+        }).anyTimes();
+        replay(pageviewDao);
+
+        // 8个线程各浏览每个疾病1000次，同时不停写回
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicBoolean running = new AtomicBoolean(true);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    pageviewCounter.increment(i % 3 + 1, null);
+                }
+                done.countDown();
+            });
+        }
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                pageviewCounter.flush();
+            }
+        });
+        flusher.start();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        running.set(false);
+        flusher.join();
+        pool.shutdown();
+        pageviewCounter.drain();
+
+        // 验证结果：写回的总数与浏览次数一致
+        long total = persisted.values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(threads * 1000L, total);
+        assertEquals(0, pageviewCounter.pending(1));
+        verify(pageviewDao);
+    }
+
+    @Test
+    public void testFlush_FailedBatchIsRetried() {
+        // 设置模拟行为：第一次写回失败，第二次成功
+        expect(pageviewDao.upsertIncrements(anyObject(List.class))).andThrow(new RuntimeException("db down"));
+        expect(pageviewDao.upsertIncrements(anyObject(List.class))).andAnswer(() -> {
+            List<Pageview> deltas = (List<Pageview>) getCurrentArguments()[0];
+            deltas.forEach(p -> persisted.merge(p.getIllnessId(), (long) p.getPageviews(), Long::sum));
+            return deltas.size();
+        });
+        replay(pageviewDao);
+
+        pageviewCounter.increment(7, null);
+        pageviewCounter.increment(7, null);
+        pageviewCounter.flush();
+        // 写回失败，增量仍计入展示的浏览量
+        assertEquals(2, pageviewCounter.pending(7));
+
+        pageviewCounter.increment(7, null);
+        pageviewCounter.flush();
+        assertEquals(Long.valueOf(3), persisted.get(7));
+        assertEquals(0, pageviewCounter.pending(7));
+
+        // 没有新增量时不执行SQL
+        pageviewCounter.flush();
+        verify(pageviewDao);
+    }
+
+    @Test
+    public void testFlush_MergesVisitorSketchWithPersisted() {
+        // 数据库中已有 visitor-0 ~ visitor-99 的估计器
+        HyperLogLog persistedSketch = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            persistedSketch.offer("visitor-" + i);
+        }
+        Capture<List<Pageview>> captured = newCapture();
+        expect(pageviewDao.insertMissing(Collections.singletonList(5))).andReturn(0);
+        expect(pageviewDao.selectList(anyObject(QueryWrapper.class)))
+                .andReturn(Collections.singletonList(Pageview.builder().illnessId(5).visitorSketch(persistedSketch.toBytes()).build()));
+        expect(pageviewDao.upsertIncrements(capture(captured))).andReturn(1);
+        replay(pageviewDao);
+
+        // 新的浏览中一半是老访客，每人刷新两次
+        for (int i = 50; i < 150; i++) {
+            pageviewCounter.increment(5, "visitor-" + i);
+            pageviewCounter.increment(5, "visitor-" + i);
+        }
+        pageviewCounter.flush();
+
+        Pageview written = captured.getValue().get(0);
+        assertEquals(Integer.valueOf(200), written.getPageviews());
+        long visitors = HyperLogLog.fromBytes(written.getVisitorSketch()).cardinality();
+        assertTrue("visitors=" + visitors, Math.abs(visitors - 150) <= 5);
+        // 写回后只剩数据库中的估计器
+        assertEquals(0, pageviewCounter.pending(5));
+        verify(pageviewDao);
+    }
+
+    @Test
+    public void testFlush_SketchMergedUnderRowLock() throws Exception {
+        // 记录事务边界与SQL的顺序
+        List<String> events = new ArrayList<>();
+        Field field = PageviewCounter.class.getDeclaredField("transactionTemplate");
+        field.setAccessible(true);
+        field.set(pageviewCounter, new TransactionTemplate(new RecordingTransactionManager(events)));
+        Capture<QueryWrapper<Pageview>> select = newCapture();
+        expect(pageviewDao.insertMissing(Arrays.asList(3, 8))).andAnswer(() -> {
+            events.add("insertMissing");
+            return 1;
+        });
+        expect(pageviewDao.selectList(capture(select))).andAnswer(() -> {
+            events.add("select");
+            return new ArrayList<>();
+        });
+        expect(pageviewDao.upsertIncrements(anyObject(List.class))).andAnswer(() -> {
+            events.add("upsert");
+            return 2;
+        });
+        replay(pageviewDao);
+
+        pageviewCounter.increment(8, "visitor-1");
+        pageviewCounter.increment(3, "visitor-2");
+        pageviewCounter.flush();
+
+        // 验证结果：缺少的记录在事务外插入，按id顺序加锁读取后在同一事务中写回
+        assertEquals(Arrays.asList("insertMissing", "begin", "select", "upsert", "commit"), events);
+        assertTrue(select.getValue().getSqlSegment().endsWith("ORDER BY illness_id ASC FOR UPDATE"));
+        verify(pageviewDao);
+    }
+
+    private static class RecordingTransactionManager implements PlatformTransactionManager {
+
+        private final List<String> events;
+
+        RecordingTransactionManager(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            events.add("begin");
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            events.add("commit");
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            events.add("rollback");
+        }
+    }
+}
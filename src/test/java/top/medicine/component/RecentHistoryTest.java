@@ -0,0 +1,84 @@
+package top.medicine.component;
+
+import org.junit.Before;
+import org.junit.Test;
+import top.medicine.dao.HistoryDao;
+import top.medicine.entity.History;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class RecentHistoryTest {
+
+    private RecentHistory recentHistory;
+    private HistoryDao historyDao;
+
+    @Before
+    public void setUp() throws Exception {
+        historyDao = createMock(HistoryDao.class);
+        recentHistory = new RecentHistory();
+        Field field = RecentHistory.class.getDeclaredField("historyDao");
+        field.setAccessible(true);
+        field.set(recentHistory, historyDao);
+        recentHistory.init();
+    }
+
+    private static History history(Integer userId, String keyword) {
+        return History.builder().userId(userId).operateType(2).keyword(keyword).build();
+    }
+
+    private static List<String> keywords(List<History> histories) {
+        return histories.stream().map(History::getKeyword).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testGet_LoadsOnceWithLimit() {
+        // 设置模拟行为：只允许一次 LIMIT 查询
+        expect(historyDao.selectRecent(1, RecentHistory.SIZE))
+                .andReturn(Arrays.asList(history(1, "发烧"), history(1, "感冒")));
+        replay(historyDao);
+
+        assertEquals(Arrays.asList("发烧", "感冒"), keywords(recentHistory.get(1)));
+        recentHistory.add(history(1, "头痛"));
+        assertEquals(Arrays.asList("头痛", "发烧", "感冒"), keywords(recentHistory.get(1)));
+        verify(historyDao);
+    }
+
+    @Test
+    public void testAdd_DedupesAndKeepsMostRecentTen() {
+        expect(historyDao.selectRecent(2, RecentHistory.SIZE)).andReturn(new ArrayList<>());
+        replay(historyDao);
+
+        for (int i = 0; i < 15; i++) {
+            recentHistory.add(history(2, "关键词" + i));
+        }
+        // 再次搜索旧关键词，移到最前且不重复
+        recentHistory.add(history(2, "关键词7"));
+
+        List<String> recent = keywords(recentHistory.get(2));
+        assertEquals(RecentHistory.SIZE, recent.size());
+        assertEquals("关键词7", recent.get(0));
+        assertEquals("关键词14", recent.get(1));
+        assertEquals(1, recent.stream().filter("关键词7"::equals).count());
+        assertFalse(recent.contains("关键词4"));
+        verify(historyDao);
+    }
+
+    @Test
+    public void testEvict_ReloadsFromDatabase() {
+        expect(historyDao.selectRecent(3, RecentHistory.SIZE)).andReturn(new ArrayList<>());
+        expect(historyDao.selectRecent(3, RecentHistory.SIZE)).andReturn(Arrays.asList(history(3, "咳嗽")));
+        replay(historyDao);
+
+        assertTrue(recentHistory.get(3).isEmpty());
+        recentHistory.evict(3);
+        assertEquals(Arrays.asList("咳嗽"), keywords(recentHistory.get(3)));
+        verify(historyDao);
+    }
+}
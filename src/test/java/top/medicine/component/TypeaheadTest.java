@@ -0,0 +1,89 @@
+package top.medicine.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.Before;
+import org.junit.Test;
+import top.medicine.dao.IllnessDao;
+import top.medicine.dao.IllnessMedicineDao;
+import top.medicine.dao.MedicineDao;
+import top.medicine.dao.PageviewDao;
+import top.medicine.entity.Illness;
+import top.medicine.entity.IllnessMedicine;
+import top.medicine.entity.Medicine;
+import top.medicine.entity.Pageview;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class TypeaheadTest {
+
+    private Typeahead typeahead;
+
+    @Before
+    public void setUp() {
+        // 创建模拟对象
+        IllnessDao illnessDao = createMock(IllnessDao.class);
+        MedicineDao medicineDao = createMock(MedicineDao.class);
+        IllnessMedicineDao illnessMedicineDao = createMock(IllnessMedicineDao.class);
+        PageviewDao pageviewDao = createMock(PageviewDao.class);
+
+        // 创建被测试对象并注入依赖
+        typeahead = new Typeahead();
+        setField("illnessDao", illnessDao);
+        setField("medicineDao", medicineDao);
+        setField("illnessMedicineDao", illnessMedicineDao);
+        setField("pageviewDao", pageviewDao);
+
+        // 风寒感冒浏览量最高，感冒灵颗粒关联风寒感冒
+        expect(pageviewDao.selectList(anyObject(QueryWrapper.class))).andReturn(Arrays.asList(
+                Pageview.builder().illnessId(1).pageviews(10).build(),
+                Pageview.builder().illnessId(2).pageviews(300).build()));
+        expect(illnessMedicineDao.selectList(anyObject(QueryWrapper.class))).andReturn(Arrays.asList(
+                IllnessMedicine.builder().illnessId(2).medicineId(7).build()));
+        expect(illnessDao.selectList(anyObject(QueryWrapper.class))).andReturn(Arrays.asList(
+                Illness.builder().id(1).illnessName("感冒").build(),
+                Illness.builder().id(2).illnessName("风寒感冒").build()));
+        expect(medicineDao.selectList(anyObject(QueryWrapper.class))).andReturn(Arrays.asList(
+                Medicine.builder().id(7).medicineName("感冒灵颗粒").keyword("感冒，发热 头痛").build(),
+                Medicine.builder().id(8).medicineName("风油精").build()));
+        replay(illnessDao, medicineDao, illnessMedicineDao, pageviewDao);
+        typeahead.rebuild();
+    }
+
+    private void setField(String fieldName, Object value) {
+        try {
+            Field field = Typeahead.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(typeahead, value);
+        } catch (Exception e) {
+            throw new RuntimeException("依赖注入失败", e);
+        }
+    }
+
+    @Test
+    public void testSuggest_IllnessMedicineAndKeyword() {
+        List<Map<String, Object>> result = typeahead.suggest("感冒", 10);
+
+        // 药品与关键词继承关联疾病的浏览量，浏览量相同时短的在前
+        assertEquals(Arrays.asList("感冒", "感冒灵颗粒", "感冒"),
+                result.stream().map(m -> m.get("text")).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("keyword", "medicine", "illness"),
+                result.stream().map(m -> m.get("type")).collect(Collectors.toList()));
+        assertFalse(result.get(0).containsKey("id"));
+        assertEquals(7, result.get(1).get("id"));
+    }
+
+    @Test
+    public void testSuggest_RankedByPageviews() {
+        List<Map<String, Object>> result = typeahead.suggest("风", 10);
+        assertEquals(Arrays.asList("风寒感冒", "风油精"),
+                result.stream().map(m -> m.get("text")).collect(Collectors.toList()));
+        assertEquals(1, typeahead.suggest("风", 1).size());
+    }
+}
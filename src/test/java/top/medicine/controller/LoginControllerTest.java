@@ -4,13 +4,20 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import top.medicine.component.EmailClient;
+import top.medicine.component.LocalCodeStore;
+import top.medicine.component.SendRateLimiter;
 import top.medicine.dto.RespResult;
 import top.medicine.entity.User;
 import top.medicine.service.UserService;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 
+import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 import static org.easymock.EasyMock.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,6 +29,11 @@ public class LoginControllerTest {
     private UserService userService;
     private HttpSession session;
     private EmailClient emailClient;
+    private HttpServletRequest request;
+    private LocalCodeStore codeStore;
+
+    // 验证码存储使用的时钟
+    private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
 
     @Before
     public void setUp() {
@@ -29,12 +41,30 @@ public class LoginControllerTest {
         userService = createMock(UserService.class);
         session = createMock(HttpSession.class);
         emailClient = createMock(EmailClient.class);
+        request = createMock(HttpServletRequest.class);
+        codeStore = new LocalCodeStore();
+        setField(LocalCodeStore.class, codeStore, "clock", (LongSupplier) now::get);
+        SendRateLimiter sendRateLimiter = new SendRateLimiter();
+        setField(SendRateLimiter.class, sendRateLimiter, "codeStore", codeStore);
 
         // 创建被测试对象并注入模拟依赖
         loginController = new LoginController();
         loginController.userService = userService;
         loginController.session = session;
         loginController.emailClient = emailClient;
+        loginController.codeStore = codeStore;
+        loginController.sendRateLimiter = sendRateLimiter;
+    }
+
+    // 辅助方法：通过反射设置字段
+    private void setField(Class<?> clazz, Object target, String fieldName, Object value) {
+        try {
+            Field field = clazz.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("依赖注入失败", e);
+        }
     }
 
     // 邮箱为空
@@ -61,17 +91,12 @@ public class LoginControllerTest {
         user.setUserEmail("test@example.com");
         String code = "123456";
 
-        // 设置模拟行为
-        expect(session.getAttribute("EMAIL_CODEtest@example.com")).andReturn(null);
-        replay(session);
-
         // 执行测试
         RespResult result = loginController.register(user, code);
 
-        // 验证结果
-        assertEquals("尚未发送验证码", result.getMessage());
+        // 验证结果：验证码不在会话中保存
+        assertEquals("验证码已经超时或尚未发送", result.getMessage());
         assertEquals("FAIL", result.getCode());
-        verify(session);
     }
 
     // 验证码超时
@@ -81,26 +106,55 @@ public class LoginControllerTest {
         User user = new User();
         user.setUserEmail("test@example.com");
         String code = "123456";
+        sendCode("test@example.com", code);
 
-        // 准备过期验证码数据
-        Map<String, Object> codeData = new HashMap<>();
-        codeData.put("code", "123456");
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.MINUTE, -6); // 设置为6分钟前，已过期
-        codeData.put("time", calendar.getTime());
-
-        // 设置模拟行为
-        expect(session.getAttribute("EMAIL_CODEtest@example.com")).andReturn(codeData);
-        session.removeAttribute("EMAIL_CODEtest@example.com");
-        replay(session);
+        // 6分钟后，已过期
+        now.addAndGet(TimeUnit.MINUTES.toMillis(6));
 
         // 执行测试
         RespResult result = loginController.register(user, code);
 
         // 验证结果
-        assertEquals("验证码已经超时", result.getMessage());
+        assertEquals("验证码已经超时或尚未发送", result.getMessage());
+        assertEquals("FAIL", result.getCode());
+    }
+
+    // 验证码错误
+    @Test
+    public void testRegister_WrongCode() {
+        // 准备测试数据
+        User user = new User();
+        user.setUserEmail("test@example.com");
+        sendCode("test@example.com", "123456");
+
+        // 执行测试
+        RespResult result = loginController.register(user, "654321");
+
+        // 验证结果
+        assertEquals("验证码错误", result.getMessage());
         assertEquals("FAIL", result.getCode());
-        verify(session);
+    }
+
+    // 注册成功后验证码失效
+    @Test
+    public void testRegister_Success() {
+        // 准备测试数据
+        User user = User.builder().userAccount("newuser").userEmail("test@example.com").build();
+        sendCode("test@example.com", "123456");
+
+        // 设置模拟行为
+        expect(userService.query(User.builder().userAccount("newuser").build())).andReturn(new ArrayList<>());
+        expect(userService.save(user)).andReturn(user);
+        session.setAttribute("loginUser", user);
+        replay(userService, session);
+
+        // 执行测试
+        RespResult result = loginController.register(user, "123456");
+
+        // 验证结果
+        assertEquals("注册成功", result.getMessage());
+        assertNull(codeStore.get("code:email:test@example.com"));
+        verify(userService, session);
     }
 
     // 登录成功
@@ -184,7 +238,7 @@ public class LoginControllerTest {
     @Test
     public void testSendEmailCode_EmptyEmail() {
         // 执行测试
-        RespResult result = loginController.sendEmailCode("", new HashMap<>());
+        RespResult result = loginController.sendEmailCode("", request);
 
         // 验证结果
         assertEquals("邮箱不可为空", result.getMessage());
@@ -197,20 +251,103 @@ public class LoginControllerTest {
         // 准备测试数据
         String email = "test@example.com";
         String verifyCode = "123456";
-        Map<String, Object> map = new HashMap<>();
 
-        // 设置模拟行为
+        // 设置模拟行为：会话不再被访问
+        expect(request.getRemoteAddr()).andReturn("10.0.0.1");
         expect(emailClient.sendEmailCode(email)).andReturn(verifyCode);
-        session.setAttribute(eq("EMAIL_CODEtest@example.com"), anyObject(Map.class));
-        replay(emailClient, session);
+        replay(request, emailClient, session);
 
         // 执行测试
-        RespResult result = loginController.sendEmailCode(email, map);
+        RespResult result = loginController.sendEmailCode(email, request);
 
         // 验证结果
         assertEquals("发送成功", result.getMessage());
         assertEquals("SUCCESS", result.getCode());
-        verify(emailClient, session);
+        assertEquals(verifyCode, codeStore.get("code:email:" + email));
+        verify(request, emailClient, session);
+    }
+
+    // 同一邮箱一分钟内只能发送一次
+    @Test
+    public void testSendEmailCode_EmailRateLimited() {
+        // 设置模拟行为：只发送一次邮件
+        expect(request.getRemoteAddr()).andReturn("10.0.0.1").anyTimes();
+        expect(emailClient.sendEmailCode("test@example.com")).andReturn("123456").once();
+        expect(emailClient.sendEmailCode("test@example.com")).andReturn("654321").once();
+        replay(request, emailClient);
+
+        // 执行测试
+        assertEquals("SUCCESS", loginController.sendEmailCode("test@example.com", request).getCode());
+        RespResult result = loginController.sendEmailCode("test@example.com", request);
+
+        // 验证结果：第二次被拒绝，原验证码仍然有效
+        assertEquals("发送过于频繁，请稍后再试", result.getMessage());
+        assertEquals("123456", codeStore.get("code:email:test@example.com"));
+
+        // 窗口过后可以再次发送
+        now.addAndGet(TimeUnit.SECONDS.toMillis(61));
+        assertEquals("SUCCESS", loginController.sendEmailCode("test@example.com", request).getCode());
+        assertEquals("654321", codeStore.get("code:email:test@example.com"));
+        verify(emailClient);
     }
 
+    // 同一IP一小时内最多发送10次
+    @Test
+    public void testSendEmailCode_IpRateLimited() {
+        // 设置模拟行为
+        expect(request.getRemoteAddr()).andReturn("10.0.0.1").anyTimes();
+        expect(emailClient.sendEmailCode(anyString())).andReturn("123456").times(10);
+        replay(request, emailClient);
+
+        // 执行测试
+        for (int i = 0; i < 10; i++) {
+            assertEquals("SUCCESS", loginController.sendEmailCode("user" + i + "@example.com", request).getCode());
+        }
+        RespResult result = loginController.sendEmailCode("user10@example.com", request);
+
+        // 验证结果
+        assertEquals("发送过于频繁，请稍后再试", result.getMessage());
+        verify(emailClient);
+    }
+
+    // 被IP限制拒绝的请求不占用邮箱的次数
+    @Test
+    public void testSendEmailCode_IpLimitDoesNotSpendEmailQuota() {
+        HttpServletRequest other = createMock(HttpServletRequest.class);
+        expect(request.getRemoteAddr()).andReturn("10.0.0.1").anyTimes();
+        expect(other.getRemoteAddr()).andReturn("10.0.0.2").anyTimes();
+        expect(emailClient.sendEmailCode(anyString())).andReturn("123456").times(11);
+        replay(request, other, emailClient);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("SUCCESS", loginController.sendEmailCode("user" + i + "@example.com", request).getCode());
+        }
+        assertEquals("FAIL", loginController.sendEmailCode("user10@example.com", request).getCode());
+
+        // 换一个IP，该邮箱仍可发送
+        assertEquals("SUCCESS", loginController.sendEmailCode("user10@example.com", other).getCode());
+        verify(emailClient);
+    }
+
+    // 邮箱大小写不同视为同一邮箱
+    @Test
+    public void testSendEmailCode_EmailLimitIgnoresCase() {
+        expect(request.getRemoteAddr()).andReturn("10.0.0.1").anyTimes();
+        expect(emailClient.sendEmailCode("test@example.com")).andReturn("123456").once();
+        replay(request, emailClient);
+
+        assertEquals("SUCCESS", loginController.sendEmailCode("test@example.com", request).getCode());
+        RespResult result = loginController.sendEmailCode("Test@Example.COM", request);
+
+        assertEquals("发送过于频繁，请稍后再试", result.getMessage());
+        verify(emailClient);
+    }
+
+    // 通过接口发送一条验证码
+    private void sendCode(String email, String code) {
+        expect(request.getRemoteAddr()).andReturn("10.0.0.1");
+        expect(emailClient.sendEmailCode(email)).andReturn(code);
+        replay(request, emailClient);
+        loginController.sendEmailCode(email, request);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package top.medicine.controller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import top.medicine.component.EmailClient;
+import top.medicine.entity.User;
+import top.medicine.service.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 数百个并发请求各自带着不同用户的会话访问同一个单例控制器，每个请求只能看到自己的登录用户
+ */
+public class RequestIsolationTest {
+
+    private static final int REQUESTS = 400;
+
+    private GenericWebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @EnableWebMvc
+    @Configuration
+    static class WebConfig {
+    }
+
+    @Before
+    public void setUp() {
+        context = new GenericWebApplicationContext(new MockServletContext());
+        AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+        context.registerBean(WebConfig.class);
+        context.registerBean(UserController.class);
+        for (Class<?> type : new Class<?>[]{UserService.class, IllnessKindService.class, IllnessMedicineService.class,
+                IllnessService.class, MedicineService.class, HistoryService.class, FeedbackService.class,
+                VideoService.class, EmailClient.class}) {
+            registerMock(type);
+        }
+        context.refresh();
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    // 直接注册单例，模拟对象不经过依赖注入
+    private void registerMock(Class<?> type) {
+        context.getBeanFactory().registerSingleton(type.getSimpleName(), createNiceMock(type));
+    }
+
+    @Test
+    public void testConcurrentRequestsSeeOwnLoginUser() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> responses = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            MockHttpSession session = new MockHttpSession();
+            session.setAttribute("loginUser", User.builder().id(i).userName("user" + i).build());
+            responses.add(pool.submit(() -> {
+                start.await();
+                MvcResult result = mockMvc.perform(post("/user/profile").session(session)).andReturn();
+                return result.getResponse().getContentAsString();
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < REQUESTS; i++) {
+            String body = responses.get(i).get(60, TimeUnit.SECONDS);
+            assertEquals(body, true, body.contains("\"userName\":\"user" + i + "\""));
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,84 @@
+package top.medicine.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import top.medicine.dao.IllnessKindDao;
+import top.medicine.entity.IllnessKind;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+@SpringBootTest
+public class IllnessKindServiceTest {
+
+    private IllnessKindService illnessKindService;
+    private IllnessKindDao illnessKindDao;
+
+    @Before
+    public void setUp() throws Exception {
+        // 创建模拟对象
+        illnessKindDao = createMock(IllnessKindDao.class);
+
+        // 创建被测试对象并注入依赖
+        illnessKindService = new IllnessKindService();
+        Field field = IllnessKindService.class.getDeclaredField("illnessKindDao");
+        field.setAccessible(true);
+        field.set(illnessKindService, illnessKindDao);
+    }
+
+    @Test
+    public void testGet_ReadsFromSnapshot() {
+        // 设置模拟行为：只允许加载一次
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>(Arrays.asList(
+                IllnessKind.builder().id(1).name("内科").build(),
+                IllnessKind.builder().id(2).name("外科").build())));
+        replay(illnessKindDao);
+
+        // 执行测试
+        for (int i = 0; i < 10; i++) {
+            assertEquals("内科", illnessKindService.get(1).getName());
+            assertEquals("外科", illnessKindService.getIdToNameMap().get(2));
+            assertEquals(2, illnessKindService.findList().size());
+        }
+        assertNull(illnessKindService.get(3));
+        verify(illnessKindDao);
+    }
+
+    @Test
+    public void testSave_SwapsSnapshot() {
+        // 设置模拟行为
+        IllnessKind kind = IllnessKind.builder().id(3).name("儿科").build();
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class)))
+                .andReturn(new ArrayList<>(Arrays.asList(IllnessKind.builder().id(1).name("内科").build())));
+        expect(illnessKindDao.updateById(kind)).andReturn(1);
+        expect(illnessKindDao.selectById(3)).andReturn(kind);
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>(Arrays.asList(
+                IllnessKind.builder().id(1).name("内科").build(), kind)));
+        expect(illnessKindDao.deleteById(1)).andReturn(1);
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>(Arrays.asList(kind)));
+        replay(illnessKindDao);
+
+        // 执行测试
+        assertNull(illnessKindService.get(3));
+        assertEquals("儿科", illnessKindService.save(kind).getName());
+        assertEquals("儿科", illnessKindService.get(3).getName());
+        illnessKindService.delete(1);
+        assertNull(illnessKindService.get(1));
+        assertEquals(1, illnessKindService.findList().size());
+        verify(illnessKindDao);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFindList_IsReadOnly() {
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        replay(illnessKindDao);
+
+        illnessKindService.findList().add(new IllnessKind());
+    }
+}
@@ -0,0 +1,152 @@
+package top.medicine.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import top.medicine.component.IllnessMedicineGraph;
+import top.medicine.component.Typeahead;
+import top.medicine.dao.IllnessMedicineDao;
+import top.medicine.dao.MedicineDao;
+import top.medicine.entity.IllnessMedicine;
+import top.medicine.entity.Medicine;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class IllnessMedicineServiceTest {
+
+    private IllnessMedicineService illnessMedicineService;
+    private IllnessMedicineDao illnessMedicineDao;
+    private MedicineDao medicineDao;
+
+    @Before
+    public void setUp() {
+        // 创建模拟对象
+        illnessMedicineDao = createMock(IllnessMedicineDao.class);
+        medicineDao = createMock(MedicineDao.class);
+
+        // 创建被测试对象并注入依赖
+        illnessMedicineService = new IllnessMedicineService();
+        setField(IllnessMedicineService.class, "illnessMedicineDao", illnessMedicineDao);
+        setField(BaseService.class, "medicineDao", medicineDao);
+    }
+
+    private void setField(Class<?> clazz, String fieldName, Object value) {
+        try {
+            Field field = clazz.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(illnessMedicineService, value);
+        } catch (Exception e) {
+            throw new RuntimeException("依赖注入失败", e);
+        }
+    }
+
+    @Test
+    public void testFindByMedicine_SingleQuery() {
+        // 准备测试数据：疾病3重复关联，保留第一条
+        List<IllnessMedicine> relations = Arrays.asList(
+                IllnessMedicine.builder().id(1).illnessId(2).medicineId(9).build(),
+                IllnessMedicine.builder().id(2).illnessId(3).medicineId(9).build(),
+                IllnessMedicine.builder().id(3).illnessId(3).medicineId(9).build());
+
+        // 设置模拟行为：只允许一次查询
+        expect(illnessMedicineDao.selectList(anyObject(QueryWrapper.class))).andReturn(relations).once();
+        replay(illnessMedicineDao, medicineDao);
+
+        // 执行测试
+        Map<Integer, IllnessMedicine> result = illnessMedicineService.findByMedicine(9);
+
+        // 验证结果
+        assertEquals(2, result.size());
+        assertEquals(Integer.valueOf(2), result.get(3).getId());
+        assertNull(result.get(4));
+        verify(illnessMedicineDao, medicineDao);
+    }
+
+    @Test
+    public void testSave_RolledBackLeavesNoEdge() {
+        IllnessMedicineGraph graph = new IllnessMedicineGraph();
+        setField(IllnessMedicineService.class, "illnessMedicineGraph", graph);
+        IllnessMedicine relation = IllnessMedicine.builder().id(4).illnessId(1).medicineId(7).build();
+        expect(illnessMedicineDao.updateById(relation)).andReturn(1);
+        expect(illnessMedicineDao.selectById(4)).andReturn(relation);
+        replay(illnessMedicineDao, medicineDao);
+
+        // 执行测试：保存后事务回滚
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            illnessMedicineService.save(relation);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // 验证结果：关联图中没有未提交的关联
+        assertTrue(graph.medicinesOfAny(Collections.singletonList(1)).isEmpty());
+        verify(illnessMedicineDao, medicineDao);
+    }
+
+    @Test
+    public void testDelete_MarksTypeaheadDirtyAfterCommit() throws Exception {
+        Typeahead typeahead = new Typeahead();
+        setField(IllnessMedicineService.class, "illnessMedicineGraph", new IllnessMedicineGraph());
+        setField(IllnessMedicineService.class, "typeahead", typeahead);
+        Field dirty = Typeahead.class.getDeclaredField("dirty");
+        dirty.setAccessible(true);
+        expect(illnessMedicineDao.deleteById(4)).andReturn(1);
+        replay(illnessMedicineDao, medicineDao);
+
+        // 执行测试
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            illnessMedicineService.delete(4);
+            // 提交前联想不会按未提交的数据重建
+            assertFalse((Boolean) dirty.get(typeahead));
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // 验证结果
+        assertTrue((Boolean) dirty.get(typeahead));
+        verify(illnessMedicineDao, medicineDao);
+    }
+
+    @Test
+    public void testFindMedicines_KeepsRelationOrder() {
+        // 准备测试数据：药品8已被删除
+        List<IllnessMedicine> relations = Arrays.asList(
+                IllnessMedicine.builder().illnessId(1).medicineId(7).build(),
+                IllnessMedicine.builder().illnessId(1).medicineId(8).build(),
+                IllnessMedicine.builder().illnessId(1).medicineId(5).build());
+        List<Medicine> medicines = Arrays.asList(
+                Medicine.builder().id(5).medicineName("布洛芬").build(),
+                Medicine.builder().id(7).medicineName("阿莫西林").build());
+
+        // 设置模拟行为：关联与药品各一次查询
+        expect(illnessMedicineDao.selectList(anyObject(QueryWrapper.class))).andReturn(relations).once();
+        expect(medicineDao.selectBatchIds(anyObject(Collection.class))).andReturn(medicines).once();
+        replay(illnessMedicineDao, medicineDao);
+
+        // 执行测试
+        List<Medicine> result = illnessMedicineService.findMedicines(1);
+
+        // 验证结果
+        assertEquals(Arrays.asList(7, 5), result.stream().map(Medicine::getId).collect(Collectors.toList()));
+        verify(illnessMedicineDao, medicineDao);
+    }
+
+    @Test
+    public void testFindMedicines_NoRelationSkipsMedicineQuery() {
+        expect(illnessMedicineDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        replay(illnessMedicineDao, medicineDao);
+
+        assertTrue(illnessMedicineService.findMedicines(1).isEmpty());
+        verify(illnessMedicineDao, medicineDao);
+    }
+}
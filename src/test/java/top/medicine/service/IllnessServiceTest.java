@@ -0,0 +1,435 @@
+package top.medicine.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.easymock.Capture;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import top.medicine.component.IllnessIndex;
+import top.medicine.component.IllnessTrending;
+import top.medicine.component.PageviewCounter;
+import top.medicine.component.Typeahead;
+import top.medicine.dao.IllnessDao;
+import top.medicine.dao.IllnessKindDao;
+import top.medicine.dao.PageviewDao;
+import top.medicine.dto.PageCursor;
+import top.medicine.entity.Illness;
+import top.medicine.entity.IllnessKind;
+import top.medicine.entity.Pageview;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+@SpringBootTest
+public class IllnessServiceTest {
+
+    private IllnessService illnessService;
+    private IllnessDao illnessDao;
+    private PageviewDao pageviewDao;
+    private IllnessKindDao illnessKindDao;
+    private IllnessIndex illnessIndex;
+
+    // 执行过的SQL语句数
+    private final AtomicInteger statements = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        // 创建模拟对象
+        illnessDao = createMock(IllnessDao.class);
+        pageviewDao = createMock(PageviewDao.class);
+        illnessKindDao = createMock(IllnessKindDao.class);
+
+        // 创建被测试对象
+        illnessService = new IllnessService();
+        illnessIndex = new IllnessIndex();
+        IllnessKindService illnessKindService = new IllnessKindService();
+
+        // 使用反射注入依赖
+        setField(IllnessService.class, illnessService, "illnessDao", illnessDao);
+        setField(IllnessService.class, illnessService, "illnessIndex", illnessIndex);
+        setField(IllnessService.class, illnessService, "illnessKindService", illnessKindService);
+        setField(IllnessService.class, illnessService, "pageviewCounter", new PageviewCounter());
+        setField(BaseService.class, illnessService, "pageviewDao", pageviewDao);
+        setField(IllnessKindService.class, illnessKindService, "illnessKindDao", illnessKindDao);
+    }
+
+    // 辅助方法：通过反射设置字段
+    private void setField(Class<?> clazz, Object target, String fieldName, Object value) {
+        try {
+            Field field = clazz.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("依赖注入失败", e);
+        }
+    }
+
+    @Test
+    public void testFindIllness_StatementCountIndependentOfPageSize() {
+        // 准备测试数据：12条疾病均命中关键词，第一页9条
+        List<Map<String, Object>> rows = new ArrayList<>();
+        List<Pageview> pageviews = new ArrayList<>();
+        for (int id = 1; id <= 12; id++) {
+            illnessIndex.put(Illness.builder().id(id).kindId(id % 2 + 1).illnessName("感冒" + id).build());
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            row.put("kind_id", id % 2 + 1);
+            row.put("illness_name", "感冒" + id);
+            row.put("create_time", new Date());
+            rows.add(row);
+            pageviews.add(Pageview.builder().illnessId(id).pageviews(id * 10).build());
+        }
+        List<IllnessKind> kinds = Arrays.asList(
+                IllnessKind.builder().id(1).name("急诊科").build(),
+                IllnessKind.builder().id(2).name("内科").build());
+
+        // 设置模拟行为：每条SQL只允许执行一次
+        expect(illnessDao.selectMaps(anyObject(QueryWrapper.class))).andAnswer(() -> {
+            statements.incrementAndGet();
+            return rows;
+        });
+        expect(pageviewDao.selectList(anyObject(QueryWrapper.class))).andAnswer(() -> {
+            statements.incrementAndGet();
+            return pageviews;
+        });
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andAnswer(() -> {
+            statements.incrementAndGet();
+            return kinds;
+        });
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试
+        Map<String, Object> result = illnessService.findIllness(null, "感冒", 1, null);
+
+        // 验证结果
+        List<Map<String, Object>> illness = (List<Map<String, Object>>) result.get("illness");
+        assertEquals(9, illness.size());
+        assertEquals(3, statements.get());
+        for (Map<String, Object> row : illness) {
+            int id = (Integer) row.get("id");
+            assertEquals(id * 10, row.get("pageview"));
+            assertEquals(id % 2 == 0 ? "急诊科" : "内科", row.get("kindName"));
+        }
+        verify(illnessDao, pageviewDao, illnessKindDao);
+    }
+
+    @Test
+    public void testFindIllness_NoMatch() {
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试
+        Map<String, Object> result = illnessService.findIllness(null, "骨折", 1, null);
+
+        // 验证结果：没有命中时不执行任何SQL
+        assertTrue(((List<?>) result.get("illness")).isEmpty());
+        verify(illnessDao, pageviewDao, illnessKindDao);
+    }
+
+    @Test
+    public void testFindIllness_BrowseUsesCountAndSingleDataQuery() {
+        // 准备测试数据：共20条，第3页只剩2条
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int id = 1; id <= 2; id++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            row.put("kind_id", 1);
+            rows.add(row);
+        }
+        Capture<QueryWrapper<Illness>> captured = newCapture();
+
+        // 设置模拟行为
+        expect(illnessDao.selectCount(anyObject(QueryWrapper.class))).andReturn(20);
+        expect(illnessDao.selectMaps(capture(captured))).andReturn(rows);
+        expect(pageviewDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试
+        Map<String, Object> result = illnessService.findIllness(1, null, 3, null);
+
+        // 验证结果
+        assertEquals(3, result.get("size"));
+        assertEquals(20L, result.get("total"));
+        assertTrue(captured.getValue().getSqlSegment().endsWith("limit 18,9"));
+        verify(illnessDao, pageviewDao, illnessKindDao);
+    }
+
+    @Test
+    public void testFindIllness_PageBeyondTotalSkipsDataQuery() {
+        // 设置模拟行为
+        expect(illnessDao.selectCount(anyObject(QueryWrapper.class))).andReturn(9);
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试
+        Map<String, Object> result = illnessService.findIllness(null, null, 2, null);
+
+        // 验证结果：9条正好一页
+        assertEquals(1, result.get("size"));
+        assertTrue(((List<?>) result.get("illness")).isEmpty());
+        verify(illnessDao, pageviewDao, illnessKindDao);
+    }
+
+    @Test
+    public void testFindIllness_SeekFirstPageSkipsCount() {
+        // 准备测试数据：多取的第10条说明还有下一页
+        List<Map<String, Object>> rows = seekRows(20, 10);
+        Capture<QueryWrapper<Illness>> captured = newCapture();
+
+        // 设置模拟行为：不允许执行 COUNT
+        expect(illnessDao.selectMaps(capture(captured))).andReturn(rows);
+        expect(pageviewDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试：空游标表示游标分页的第一页
+        Map<String, Object> result = illnessService.findIllness(null, null, null, "");
+
+        // 验证结果
+        assertEquals(9, ((List<?>) result.get("illness")).size());
+        assertEquals(true, result.get("cursorMode"));
+        assertNull(result.get("prevCursor"));
+        PageCursor next = PageCursor.decode((String) result.get("nextCursor"));
+        assertEquals(12, next.getId());
+        assertFalse(next.isBackward());
+        assertTrue(captured.getValue().getSqlSegment().endsWith("ORDER BY create_time DESC , id DESC limit 10"));
+        verify(illnessDao, pageviewDao, illnessKindDao);
+    }
+
+    @Test
+    public void testFindIllness_SeekBackwardRestoresOrder() {
+        // 准备测试数据：向前翻页按升序返回，只剩3条说明已到第一页
+        List<Map<String, Object>> rows = seekRows(7, 3);
+        Collections.reverse(rows);
+        String cursor = PageCursor.of(new Date(1000L * 4), 4, true).encode();
+        Capture<QueryWrapper<Illness>> captured = newCapture();
+
+        // 设置模拟行为
+        expect(illnessDao.selectMaps(capture(captured))).andReturn(rows);
+        expect(pageviewDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试
+        Map<String, Object> result = illnessService.findIllness(1, null, null, cursor);
+
+        // 验证结果：恢复为倒序，没有上一页，下一页从最后一条继续
+        List<Map<String, Object>> illness = (List<Map<String, Object>>) result.get("illness");
+        assertEquals(Arrays.asList(7, 6, 5), illness.stream().map(l -> l.get("id")).collect(Collectors.toList()));
+        assertNull(result.get("prevCursor"));
+        assertEquals(5, PageCursor.decode((String) result.get("nextCursor")).getId());
+        String sql = captured.getValue().getSqlSegment();
+        assertTrue(sql.contains("create_time >") && sql.contains("id >"));
+        assertTrue(sql.endsWith("ORDER BY create_time ASC , id ASC limit 10"));
+        verify(illnessDao, pageviewDao, illnessKindDao);
+    }
+
+    @Test
+    public void testFindIllness_CountCacheExpiresWhileRead() throws InterruptedException {
+        setField(BaseService.class, illnessService, "countCacheTtl", 100L);
+        expect(illnessDao.selectCount(anyObject(QueryWrapper.class))).andAnswer(() -> {
+            statements.incrementAndGet();
+            return 20;
+        }).anyTimes();
+        expect(illnessDao.selectMaps(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>()).anyTimes();
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试：在缓存时间内持续读取
+        long end = System.currentTimeMillis() + 350;
+        while (System.currentTimeMillis() < end) {
+            illnessService.findIllness(null, null, 1, null);
+            Thread.sleep(20);
+        }
+
+        // 验证结果：持续读取不会延长缓存时间
+        assertTrue(statements.get() >= 3);
+    }
+
+    @Test
+    public void testFindIllness_ChangeClearsCountCache() {
+        setField(BaseService.class, illnessService, "countCacheTtl", 60000L);
+        expect(illnessDao.selectCount(anyObject(QueryWrapper.class))).andReturn(20).times(2);
+        expect(illnessDao.selectMaps(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>()).anyTimes();
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试
+        illnessService.findIllness(null, null, 1, null);
+        illnessService.findIllness(null, null, 1, null);
+        illnessService.publishChange(1);
+        illnessService.findIllness(null, null, 1, null);
+
+        // 验证结果：缓存命中一次，变更后重新统计
+        verify(illnessDao);
+    }
+
+    @Test
+    public void testFindIllness_DefaultIsFirstNumberedPage() {
+        Capture<QueryWrapper<Illness>> captured = newCapture();
+
+        // 设置模拟行为：未传页码与游标时按页码分页
+        expect(illnessDao.selectCount(anyObject(QueryWrapper.class))).andReturn(20);
+        expect(illnessDao.selectMaps(capture(captured))).andReturn(seekRows(20, 9));
+        expect(pageviewDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试
+        Map<String, Object> result = illnessService.findIllness(null, null, null, null);
+
+        // 验证结果
+        assertEquals(false, result.get("cursorMode"));
+        assertTrue(captured.getValue().getSqlSegment().endsWith("limit 0,9"));
+        verify(illnessDao, pageviewDao, illnessKindDao);
+    }
+
+    @Test
+    public void testFindIllness_DeepPageSeeksFromBoundary() {
+        // 准备测试数据：第200页的第一条记录
+        Map<String, Object> boundary = new HashMap<>();
+        boundary.put("create_time", new Date(1000L * 42));
+        boundary.put("id", 42);
+        Capture<QueryWrapper<Illness>> boundaryQuery = newCapture();
+        Capture<QueryWrapper<Illness>> dataQuery = newCapture();
+
+        // 设置模拟行为
+        expect(illnessDao.selectCount(anyObject(QueryWrapper.class))).andReturn(5000);
+        expect(illnessDao.selectMaps(capture(boundaryQuery))).andReturn(Collections.singletonList(boundary));
+        expect(illnessDao.selectMaps(capture(dataQuery))).andReturn(seekRows(42, 9));
+        expect(pageviewDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试
+        Map<String, Object> result = illnessService.findIllness(1, null, 200, null);
+
+        // 验证结果：大偏移只查 create_time、id，数据按游标从第一条记录开始取
+        assertEquals(9, ((List<?>) result.get("illness")).size());
+        assertEquals("create_time,id", boundaryQuery.getValue().getSqlSelect());
+        assertTrue(boundaryQuery.getValue().getSqlSegment().endsWith("limit 1791,1"));
+        String sql = dataQuery.getValue().getSqlSegment();
+        assertTrue(sql.contains("kind_id =") && sql.contains("id <=") && sql.contains("create_time IS NULL"));
+        assertTrue(sql.endsWith("ORDER BY create_time DESC , id DESC limit 9"));
+        verify(illnessDao, pageviewDao, illnessKindDao);
+    }
+
+    @Test
+    public void testFindIllness_SeekPastNullCreateTime() {
+        // 准备测试数据：创建时间为空的记录排在最后
+        List<Map<String, Object>> rows = seekRows(12, 10);
+        rows.forEach(row -> row.put("create_time", null));
+        String cursor = PageCursor.of(null, 13, false).encode();
+        Capture<QueryWrapper<Illness>> captured = newCapture();
+
+        // 设置模拟行为
+        expect(illnessDao.selectMaps(capture(captured))).andReturn(rows);
+        expect(pageviewDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        expect(illnessKindDao.selectList(anyObject(QueryWrapper.class))).andReturn(new ArrayList<>());
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试
+        Map<String, Object> result = illnessService.findIllness(null, null, null, cursor);
+
+        // 验证结果：只按id继续定位，下一页游标保留空的创建时间
+        String sql = captured.getValue().getSqlSegment();
+        assertTrue(sql.startsWith("(create_time IS NULL AND id <"));
+        PageCursor next = PageCursor.decode((String) result.get("nextCursor"));
+        assertNull(next.getCreateTime());
+        assertEquals(4, next.getId());
+        verify(illnessDao, pageviewDao, illnessKindDao);
+    }
+
+    @Test
+    public void testSave_IndexUpdatedOnlyAfterCommit() {
+        setField(IllnessService.class, illnessService, "typeahead", new Typeahead());
+        Illness illness = Illness.builder().id(5).illnessName("流感").build();
+        expect(illnessDao.updateById(illness)).andReturn(1).times(2);
+        expect(illnessDao.selectById(5)).andReturn(illness).times(2);
+        replay(illnessDao, pageviewDao, illnessKindDao);
+
+        // 执行测试：事务回滚
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            illnessService.save(illness);
+            assertTrue(illnessIndex.search(null, "流感").isEmpty());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        // 验证结果：回滚后索引中没有未提交的数据
+        assertTrue(illnessIndex.search(null, "流感").isEmpty());
+
+        // 执行测试：事务提交
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            illnessService.save(illness);
+            assertTrue(illnessIndex.search(null, "流感").isEmpty());
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(Collections.singletonList(5), illnessIndex.search(null, "流感"));
+        verify(illnessDao);
+    }
+
+    @Test
+    public void testFindIllnessOne_UnknownIdNotCounted() {
+        PageviewCounter pageviewCounter = createMock(PageviewCounter.class);
+        setField(IllnessService.class, illnessService, "pageviewCounter", pageviewCounter);
+        setField(IllnessService.class, illnessService, "illnessTrending", new IllnessTrending());
+
+        // 设置模拟行为：疾病不存在，不允许记录浏览量
+        expect(illnessDao.selectById(404)).andReturn(null);
+        replay(illnessDao, pageviewCounter);
+
+        // 执行测试
+        Map<String, Object> result = illnessService.findIllnessOne(404, "visitor");
+
+        // 验证结果
+        assertNull(result.get("illness"));
+        verify(illnessDao, pageviewCounter);
+    }
+
+    @Test
+    public void testFindIllnessOne_UnknownIdNotTrending() {
+        IllnessTrending illnessTrending = createMock(IllnessTrending.class);
+        setField(IllnessService.class, illnessService, "illnessTrending", illnessTrending);
+
+        // 设置模拟行为：疾病不存在，不允许进入热门榜
+        expect(illnessDao.selectById(404)).andReturn(null);
+        replay(illnessDao, illnessTrending);
+
+        // 执行测试
+        illnessService.findIllnessOne(404, "visitor");
+
+        // 验证结果
+        verify(illnessDao, illnessTrending);
+    }
+
+    @Test
+    public void testPageCursor_InvalidTokenStartsFromFirstPage() {
+        assertNull(PageCursor.decode("not-a-cursor"));
+        assertNull(PageCursor.decode(""));
+        PageCursor cursor = PageCursor.of(new Date(123000L), 42, true);
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+        PageCursor nullTime = PageCursor.of(null, 42, false);
+        assertEquals(nullTime, PageCursor.decode(nullTime.encode()));
+    }
+
+    // 按 (create_time, id) 倒序生成 count 条记录，id 从 top 开始递减
+    private List<Map<String, Object>> seekRows(int top, int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int id = top; id > top - count; id--) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            row.put("kind_id", 1);
+            row.put("create_time", new Date(1000L * id));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
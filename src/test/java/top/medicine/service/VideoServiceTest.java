@@ -3,7 +3,9 @@ package top.medicine.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.junit.Before;
 import org.junit.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.env.MockEnvironment;
 import top.medicine.dao.VideoDao;
 import top.medicine.entity.Video;
 
@@ -230,4 +232,104 @@ public class VideoServiceTest {
         assertEquals(2, result.size());
         verify(videoDao);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGet_CachedAndCopied() throws Exception {
+        enableCache(new MockEnvironment());
+        // 设置模拟行为：只允许查询一次
+        expect(videoDao.selectById(1)).andReturn(Video.builder().id(1).title("Cached").build());
+        replay(videoDao);
+
+        // 执行测试
+        Video first = videoService.get(1);
+        first.setTitle("Changed");
+        Video second = videoService.get(1);
+
+        // 验证结果：修改返回值不影响缓存
+        assertEquals("Cached", second.getTitle());
+        assertNotSame(first, second);
+        verify(videoDao);
+    }
+
+    @Test
+    public void testGet_EvictedBySaveAndDelete() throws Exception {
+        enableCache(new MockEnvironment());
+        Video updated = Video.builder().id(1).title("Updated").build();
+        // 设置模拟行为
+        expect(videoDao.selectById(1)).andReturn(Video.builder().id(1).title("Old").build());
+        expect(videoDao.updateById(updated)).andReturn(1);
+        expect(videoDao.selectById(1)).andReturn(updated).times(2);
+        expect(videoDao.deleteById(1)).andReturn(1);
+        expect(videoDao.selectById(1)).andReturn(null);
+        replay(videoDao);
+
+        // 执行测试
+        assertEquals("Old", videoService.get(1).getTitle());
+        videoService.save(updated);
+        assertEquals("Updated", videoService.get(1).getTitle());
+        videoService.delete(1);
+        assertNull(videoService.get(1));
+        verify(videoDao);
+    }
+
+    @Test
+    public void testGet_ExpiresWhileRead() throws Exception {
+        enableCache(new MockEnvironment().withProperty("cache.entity.video.ttl", "100"));
+        // 设置模拟行为：绕过服务直接修改了数据库
+        expect(videoDao.selectById(1)).andReturn(Video.builder().id(1).title("Old").build());
+        expect(videoDao.selectById(1)).andReturn(Video.builder().id(1).title("New").build()).atLeastOnce();
+        replay(videoDao);
+
+        // 执行测试：在过期时间内持续读取
+        long end = System.currentTimeMillis() + 250;
+        String title = null;
+        while (System.currentTimeMillis() < end) {
+            title = videoService.get(1).getTitle();
+            Thread.sleep(20);
+        }
+
+        // 验证结果：持续读取不会延长过期时间
+        assertEquals("New", title);
+        verify(videoDao);
+    }
+
+    @Test
+    public void testGet_PerEntitySizeZeroDisablesCache() throws Exception {
+        enableCache(new MockEnvironment().withProperty("cache.entity.video.size", "0"));
+        // 设置模拟行为：每次都查询数据库
+        expect(videoDao.selectById(1)).andReturn(Video.builder().id(1).build()).times(2);
+        replay(videoDao);
+
+        videoService.get(1);
+        videoService.get(1);
+        verify(videoDao);
+    }
+
+    @Test
+    public void testGet_RecordsHitAndMissMetrics() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        setBaseField("meterRegistry", registry);
+        enableCache(new MockEnvironment());
+        expect(videoDao.selectById(1)).andReturn(Video.builder().id(1).build());
+        replay(videoDao);
+
+        videoService.get(1);
+        videoService.get(1);
+        videoService.get(1);
+
+        assertEquals(2.0, registry.get("cache.gets").tags("cache", "video", "result", "hit").functionCounter().count(), 0);
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "video", "result", "miss").functionCounter().count(), 0);
+        verify(videoDao);
+    }
+
+    // 注入配置后启用实体缓存
+    private void enableCache(MockEnvironment environment) throws Exception {
+        setBaseField("environment", environment);
+    }
+
+    private void setBaseField(String fieldName, Object value) throws Exception {
+        Field field = BaseService.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(videoService, value);
+    }
+}
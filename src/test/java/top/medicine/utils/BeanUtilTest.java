@@ -0,0 +1,71 @@
+package top.medicine.utils;
+
+import org.junit.Test;
+import top.medicine.entity.Illness;
+import top.medicine.entity.Medicine;
+import top.medicine.entity.User;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BeanUtilTest {
+
+    @Test
+    public void testCopy_SameNameProperties() throws Exception {
+        Illness illness = Illness.builder().id(1).kindId(2).illnessName("感冒").visitors(3L).build();
+
+        Illness copy = BeanUtil.copy(illness, Illness.class);
+
+        assertNotSame(illness, copy);
+        assertEquals(illness, copy);
+    }
+
+    @Test
+    public void testCopy_ConcurrentFirstUse() throws Exception {
+        // 多个线程同时首次复制多组类型，缓存不能损坏，结果不能串
+        int threads = 16;
+        int rounds = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            futures.add(pool.submit(() -> {
+                barrier.await();
+                for (int i = 0; i < rounds; i++) {
+                    int n = seed * rounds + i;
+                    switch (n % 3) {
+                        case 0:
+                            User user = User.builder().id(n).userName("u" + n).userAge(n % 100).build();
+                            if (!user.equals(BeanUtil.copy(user, User.class))) errors.incrementAndGet();
+                            break;
+                        case 1:
+                            Medicine medicine = Medicine.builder().id(n).medicineName("m" + n).medicinePrice(BigDecimal.valueOf(n)).build();
+                            if (!medicine.equals(BeanUtil.copy(medicine, Medicine.class))) errors.incrementAndGet();
+                            break;
+                        default:
+                            Illness illness = Illness.builder().id(n).illnessName("i" + n).build();
+                            Illness target = Illness.builder().kindId(7).build();
+                            BeanUtil.copy(illness, target);
+                            // 源对象中为空的属性同样会覆盖目标
+                            if (!"i".concat(String.valueOf(n)).equals(target.getIllnessName()) || target.getKindId() != null) {
+                                errors.incrementAndGet();
+                            }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertEquals(0, errors.get());
+    }
+}
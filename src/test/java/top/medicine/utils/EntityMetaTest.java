@@ -0,0 +1,63 @@
+package top.medicine.utils;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.Test;
+import top.medicine.entity.Illness;
+import top.medicine.entity.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EntityMetaTest {
+
+    @Test
+    public void testToWrapper_SameAsBean2Map() {
+        User user = User.builder().userAccount("admin").userPwd("123456").userAge(0).build();
+
+        // 原先的构造方式
+        QueryWrapper<User> expected = new QueryWrapper<>();
+        Map<String, Object> bean2Map = BeanUtil.bean2Map(user);
+        for (String key : bean2Map.keySet()) {
+            if (Assert.isEmpty(bean2Map.get(key))) {
+                continue;
+            }
+            expected.eq(VariableNameUtils.humpToLine(key), bean2Map.get(key));
+        }
+
+        QueryWrapper<User> actual = EntityMeta.of(User.class).toWrapper(user);
+
+        // 条件顺序可能不同，比较列与参数的集合
+        assertEquals(conditions(expected), conditions(actual));
+        assertTrue(actual.getSqlSegment().contains("user_account ="));
+    }
+
+    @Test
+    public void testColumns_SkipNonTableFields() {
+        List<String> columns = new ArrayList<>();
+        EntityMeta.of(Illness.class).getColumns().forEach(c -> columns.add(c.getColumn()));
+        assertTrue(columns.contains("illness_name"));
+        assertTrue(columns.contains("kind_id"));
+        assertFalse(columns.contains("pageview"));
+        assertSame(EntityMeta.of(Illness.class), EntityMeta.of(Illness.class));
+    }
+
+    @Test
+    public void testToWrapper_NullEntity() {
+        assertTrue(EntityMeta.of(User.class).toWrapper(null).isEmptyOfWhere());
+    }
+
+    private static List<String> conditions(QueryWrapper<?> wrapper) {
+        String sql = wrapper.getSqlSegment();
+        List<String> list = new ArrayList<>();
+        for (String part : sql.replace("(", "").replace(")", "").split(" AND ")) {
+            String column = part.trim().split(" ")[0];
+            String param = part.substring(part.indexOf("paramNameValuePairs.") + 20, part.indexOf('}'));
+            list.add(column + "=" + wrapper.getParamNameValuePairs().get(param));
+        }
+        list.sort(null);
+        return list;
+    }
+}
@@ -0,0 +1,63 @@
+package top.medicine.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void testCardinality_WithinErrorBound() {
+        for (int n : new int[]{0, 1, 10, 1000, 100000}) {
+            HyperLogLog hll = new HyperLogLog();
+            for (int i = 0; i < n; i++) {
+                hll.offer("user-" + i);
+                // 重复访问不计数
+                hll.offer("user-" + i);
+            }
+            long estimate = hll.cardinality();
+            // 标准误差约1.6%，这里允许5%
+            assertTrue("n=" + n + ", estimate=" + estimate, Math.abs(estimate - n) <= Math.max(1, n * 0.05));
+        }
+    }
+
+    @Test
+    public void testMerge_IsUnion() {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        for (int i = 0; i < 6000; i++) {
+            a.offer("s" + i);
+        }
+        for (int i = 3000; i < 9000; i++) {
+            b.offer("s" + i);
+        }
+        long estimate = a.merge(b).cardinality();
+        assertTrue("estimate=" + estimate, Math.abs(estimate - 9000) <= 9000 * 0.05);
+    }
+
+    @Test
+    public void testBytes_RoundTripSparseAndDense() {
+        HyperLogLog sparse = new HyperLogLog();
+        for (int i = 0; i < 20; i++) {
+            sparse.offer("v" + i);
+        }
+        byte[] sparseBytes = sparse.toBytes();
+        assertEquals(3 + 20 * 3, sparseBytes.length, 3 * 3);
+        assertEquals(sparse.cardinality(), HyperLogLog.fromBytes(sparseBytes).cardinality());
+
+        HyperLogLog dense = new HyperLogLog();
+        for (int i = 0; i < 50000; i++) {
+            dense.offer("v" + i);
+        }
+        byte[] denseBytes = dense.toBytes();
+        assertEquals(1 + 3072, denseBytes.length);
+        assertArrayEquals(denseBytes, HyperLogLog.fromBytes(denseBytes).toBytes());
+
+        assertEquals(0, HyperLogLog.fromBytes(null).cardinality());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromBytes_RejectsUnknownFormat() {
+        HyperLogLog.fromBytes(new byte[]{9, 1, 2});
+    }
+}
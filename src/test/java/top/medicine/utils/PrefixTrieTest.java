@@ -0,0 +1,64 @@
+package top.medicine.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PrefixTrieTest {
+
+    @Test
+    public void testSearch_RankedByWeight() {
+        PrefixTrie<String> trie = PrefixTrie.<String>builder(3)
+                .add("感冒", "感冒", 10)
+                .add("感冒灵颗粒", "感冒灵颗粒", 50)
+                .add("感染性腹泻", "感染性腹泻", 30)
+                .add("感冒清热颗粒", "感冒清热颗粒", 5)
+                .add("高血压", "高血压", 100)
+                .build();
+
+        assertEquals(Arrays.asList("感冒灵颗粒", "感染性腹泻", "感冒"), trie.search("感", 10));
+        assertEquals(Arrays.asList("感冒灵颗粒", "感冒", "感冒清热颗粒"), trie.search("感冒", 10));
+        assertEquals(Collections.singletonList("感冒灵颗粒"), trie.search("感冒", 1));
+        assertEquals(Collections.emptyList(), trie.search("头", 10));
+        assertEquals(Collections.emptyList(), trie.search(" ", 10));
+    }
+
+    @Test
+    public void testSearch_CaseInsensitiveAndTies() {
+        PrefixTrie<String> trie = PrefixTrie.<String>builder(5)
+                .add("VC银翘片", "VC银翘片", 1)
+                .add("Vc", "Vc", 1)
+                .build();
+
+        // 权重相同时短的在前
+        assertEquals(Arrays.asList("Vc", "VC银翘片"), trie.search("vc", 5));
+    }
+
+    @Test
+    public void testSearch_LatencyIndependentOfSize() {
+        // 5万个词条，随机前缀查询的 p99 应远低于 2ms
+        Random random = new Random(42);
+        PrefixTrie.Builder<String> builder = PrefixTrie.builder(10);
+        for (int i = 0; i < 50000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int j = 0, n = 2 + random.nextInt(8); j < n; j++) {
+                word.append((char) ('一' + random.nextInt(200)));
+            }
+            builder.add(word.toString(), word.toString(), random.nextInt(10000));
+        }
+        PrefixTrie<String> trie = builder.build();
+        long[] costs = new long[20000];
+        for (int i = 0; i < costs.length; i++) {
+            String prefix = String.valueOf((char) ('一' + random.nextInt(200))) + (char) ('一' + random.nextInt(200));
+            long start = System.nanoTime();
+            trie.search(prefix, 10);
+            costs[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(costs);
+        assertTrue(costs[(int) (costs.length * 0.99)] < 2_000_000);
+    }
+}
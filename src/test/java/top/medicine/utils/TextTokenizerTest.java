@@ -0,0 +1,74 @@
+package top.medicine.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TextTokenizerTest {
+
+    @Test
+    public void testTokenizeQuery_BigramsAndTrigrams() {
+        List<String> tokens = TextTokenizer.tokenizeQuery("头痛发热");
+
+        assertEquals(Arrays.asList("头痛", "头痛发", "痛发", "痛发热", "发热"), tokens);
+    }
+
+    @Test
+    public void testTokenizeQuery_StopWordsTrimmedAtBoundaries() {
+        List<String> tokens = TextTokenizer.tokenizeQuery("咳嗽，和，引起发热以及");
+
+        assertEquals(Arrays.asList("咳嗽", "发热"), tokens);
+    }
+
+    @Test
+    public void testTokenizeQuery_StopWordsInsideWordKept() {
+        List<String> tokens = TextTokenizer.tokenizeQuery("和胃止痛");
+
+        assertEquals(Arrays.asList("和胃", "和胃止", "胃止", "胃止痛", "止痛"), tokens);
+    }
+
+    @Test
+    public void testTokenizeQuery_SingleCharacter() {
+        assertEquals(Collections.singletonList("痛"), TextTokenizer.tokenizeQuery("痛"));
+    }
+
+    @Test
+    public void testTokenizeQuery_MixedLatin() {
+        List<String> tokens = TextTokenizer.tokenizeQuery("维生素C片, Vitamin");
+
+        assertEquals(Arrays.asList("维生", "维生素", "生素", "c", "片", "vit", "ita", "tam", "ami", "min", "vitamin"), tokens);
+    }
+
+    @Test
+    public void testSearch_PartialLatinAndDigits() {
+        FullTextIndex index = new FullTextIndex(1.0);
+        index.put(1, "国药准字H20051234");
+        index.put(2, "阿莫西林 Amoxicillin");
+        index.put(3, "Amoxi 复方制剂");
+
+        // 药品编号、英文名的一部分也能命中，与原先 LIKE '%x%' 的结果一致
+        assertEquals(Collections.singletonList(1), index.search("2005123", id -> true));
+        assertEquals(Collections.singletonList(1), index.search("34", id -> true));
+        assertEquals(Collections.singletonList(2), index.search("cillin", id -> true));
+        // 整词匹配排在部分匹配之前
+        assertEquals(Arrays.asList(3, 2), index.search("amoxi", id -> true));
+    }
+
+    @Test
+    public void testTokenize_KeepsFrequencies() {
+        List<String> tokens = TextTokenizer.tokenize("头痛、头痛");
+
+        assertEquals(2, Collections.frequency(tokens, "头痛"));
+        assertTrue(tokens.contains("头"));
+    }
+
+    @Test
+    public void testTokenize_Empty() {
+        assertTrue(TextTokenizer.tokenize(null).isEmpty());
+        assertTrue(TextTokenizer.tokenize("，。").isEmpty());
+    }
+}